@@ -0,0 +1,108 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated dataset shared by the database benchmarks. Every item gets {@link #BOOKINGS_PER_ITEM}
+ * consecutive hourly bookings around {@code now}, half in the past and half in the future, and
+ * every {@link #ITEMS_PER_REQUEST}-th item answers a request.
+ */
+final class BenchmarkDataset {
+    static final int BOOKINGS_PER_ITEM = 100;
+    static final int OWNERS = 100;
+    static final int BOOKERS = 1000;
+    static final int ITEMS_PER_REQUEST = 10;
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDataset() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.ru.practicum.shareit=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+    }
+
+    static int items(int bookings) {
+        return Math.max(1, bookings / BOOKINGS_PER_ITEM);
+    }
+
+    static void populate(JdbcTemplate jdbc, LocalDateTime now, int bookings) {
+        int items = items(bookings);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= OWNERS + BOOKERS; id++) {
+            rows.add(new Object[]{id, "user" + id + "@mail.com", "user " + id});
+        }
+        jdbc.batchUpdate("insert into shareit_users (user_id, email, name) values (?, ?, ?)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= Math.max(1, items / ITEMS_PER_REQUEST); id++) {
+            rows.add(new Object[]{id, "request " + id, Timestamp.valueOf(now.minusMinutes(id)), OWNERS + 1 + id % BOOKERS});
+            if (rows.size() == BATCH_SIZE) {
+                insert(jdbc, "insert into item_requests (request_id, description, created, requester_id) " +
+                        "values (?, ?, ?, ?)", rows);
+            }
+        }
+        insert(jdbc, "insert into item_requests (request_id, description, created, requester_id) values (?, ?, ?, ?)",
+                rows);
+
+        for (long id = 1; id <= items; id++) {
+            rows.add(new Object[]{id, "item " + id, "description " + id, true, 1 + id % OWNERS,
+                    id % ITEMS_PER_REQUEST == 0 ? id / ITEMS_PER_REQUEST : null});
+            if (rows.size() == BATCH_SIZE) {
+                insertItems(jdbc, rows);
+            }
+        }
+        insertItems(jdbc, rows);
+
+        Timestamp base = Timestamp.valueOf(now.minusHours(BOOKINGS_PER_ITEM / 2));
+        long id = 1;
+        for (long itemId = 1; itemId <= items; itemId++) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM && id <= bookings; i++, id++) {
+                long start = base.getTime() + i * TimeUnit.HOURS.toMillis(1);
+                rows.add(new Object[]{id, itemId, OWNERS + 1 + id % BOOKERS, new Timestamp(start),
+                        new Timestamp(start + TimeUnit.MINUTES.toMillis(50)), i % 10 == 0 ? "REJECTED" : "APPROVED"});
+                if (rows.size() == BATCH_SIZE) {
+                    insertBookings(jdbc, rows);
+                }
+            }
+        }
+        insertBookings(jdbc, rows);
+        // Bookings created by the benchmarks take ids from the sequence, which the generated ones bypassed.
+        jdbc.execute("alter sequence bookings_seq restart with " + (id + 50));
+        jdbc.execute("analyze");
+    }
+
+    private static void insertItems(JdbcTemplate jdbc, List<Object[]> rows) {
+        insert(jdbc, "insert into items (item_id, name, description, available, owner_id, request_id) " +
+                "values (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static void insertBookings(JdbcTemplate jdbc, List<Object[]> rows) {
+        insert(jdbc, "insert into bookings (booking_id, item_id, booker_id, start_date, end_date, status) " +
+                "values (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        jdbc.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
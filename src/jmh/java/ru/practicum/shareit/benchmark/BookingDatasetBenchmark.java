@@ -0,0 +1,84 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service hot paths against an in-memory H2 database filled with a {@link BenchmarkDataset}.
+ * {@code createBooking} runs the whole admission of a booking, overlap check and insert included, for free
+ * hours past the dataset, so the bookings table grows by one row per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BookingDatasetBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private int items;
+    private LocalDateTime now;
+    private final AtomicLong freeHour = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.start();
+        bookingRepository = context.getBean(BookingRepository.class);
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        now = LocalDateTime.now();
+        items = BenchmarkDataset.items(bookings);
+        BenchmarkDataset.populate(context.getBean(JdbcTemplate.class), now, bookings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean existsOverlapping() {
+        long itemId = 1 + ThreadLocalRandom.current().nextInt(items);
+        LocalDateTime start = now.plusHours(ThreadLocalRandom.current().nextInt(BenchmarkDataset.BOOKINGS_PER_ITEM));
+        return bookingRepository.existsOverlapping(itemId, Timestamp.valueOf(start),
+                Timestamp.valueOf(start.plusHours(1)));
+    }
+
+    @Benchmark
+    public BookingResponseDto createBooking() {
+        long itemId = 1 + ThreadLocalRandom.current().nextInt(items);
+        long bookerId = BenchmarkDataset.OWNERS + 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.BOOKERS);
+        LocalDateTime start = now.plusHours(BenchmarkDataset.BOOKINGS_PER_ITEM + freeHour.incrementAndGet());
+        return bookingService.createBooking(BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusMinutes(50))
+                .build(), bookerId);
+    }
+
+    @Benchmark
+    public List<Item> ownerItemsWithBookings() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.OWNERS);
+        return itemService.getAllItems(ownerId, 0, 20);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.QueryPlans;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexed repository queries against a {@link BenchmarkDataset} of millions of bookings.
+ * The trial fails before measuring if EXPLAIN shows a full table scan for any of {@link QueryPlans#QUERIES}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BookingQueryBenchmark {
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Param({"1000000", "3000000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private ItemRepository itemRepository;
+    private RequestRepository requestRepository;
+    private int items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.start();
+        bookingRepository = context.getBean(BookingRepository.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        requestRepository = context.getBean(RequestRepository.class);
+        items = BenchmarkDataset.items(bookings);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkDataset.populate(jdbc, LocalDateTime.now(), bookings);
+        for (Map.Entry<String, String> query : QueryPlans.QUERIES.entrySet()) {
+            String plan = QueryPlans.explain(jdbc, query.getValue());
+            if (QueryPlans.scansTable(plan)) {
+                throw new IllegalStateException(query.getKey() + " scans a table: " + plan);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Booking> bookerBookings() {
+        return bookingRepository.findByBookerIdOrderByStartDateDesc(randomBooker(), PAGE);
+    }
+
+    @Benchmark
+    public Page<Booking> bookerBookingsByStatus() {
+        return bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDateDesc(randomBooker(), Status.REJECTED,
+                PAGE);
+    }
+
+    @Benchmark
+    public Page<Booking> ownerBookings() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.OWNERS);
+        return bookingRepository.findByItemOwnerIdOrderByStartDateDesc(ownerId, PAGE);
+    }
+
+    @Benchmark
+    public List<Booking> availabilityTimeline() {
+        long itemId = 1 + ThreadLocalRandom.current().nextInt(items);
+        return bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(itemId, Status.REJECTED,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public Page<Item> ownerItems() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.OWNERS);
+        return itemRepository.findAllByOwnerId(ownerId, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Request> requesterRequests() {
+        return requestRepository.findAllByRequesterId(randomBooker(), PAGE);
+    }
+
+    private long randomBooker() {
+        return BenchmarkDataset.OWNERS + 1 + ThreadLocalRandom.current().nextInt(BenchmarkDataset.BOOKERS);
+    }
+}
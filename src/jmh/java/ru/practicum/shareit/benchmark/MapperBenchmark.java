@@ -0,0 +1,96 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    @Param({"0", "10", "1000"})
+    private int comments;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Item item;
+    private Booking booking;
+    private ItemResponseDto itemDto;
+    private BookingResponseDto bookingDto;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = User.builder().id(1L).name("owner").email("owner@mail.com").build();
+        User booker = User.builder().id(2L).name("booker").email("booker@mail.com").build();
+        item = Item.builder()
+                .id(1L)
+                .name("Drill")
+                .description("Cordless drill with two batteries")
+                .isAvailable(true)
+                .ownerId(owner.getId())
+                .build();
+        List<Comment> itemComments = new ArrayList<>();
+        for (int i = 0; i < comments; i++) {
+            itemComments.add(Comment.builder()
+                    .id((long) i)
+                    .text("Comment " + i)
+                    .author(booker)
+                    .item(item)
+                    .created(Timestamp.valueOf(now.minusHours(i)))
+                    .build());
+        }
+        item.setComments(itemComments);
+        item.setCommentsCount((long) comments);
+        booking = Booking.builder()
+                .id(1L)
+                .startDate(Timestamp.valueOf(now.plusDays(1)))
+                .endDate(Timestamp.valueOf(now.plusDays(2)))
+                .item(item)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .build();
+        item.setLastBooking(booking);
+        item.setNextBooking(booking);
+        itemDto = ItemMapper.mapToDto(item);
+        bookingDto = BookingMapper.mapToDto(booking);
+    }
+
+    @Benchmark
+    public BookingResponseDto bookingMapToDto() {
+        return BookingMapper.mapToDto(booking);
+    }
+
+    @Benchmark
+    public ItemResponseDto itemMapToDto() {
+        return ItemMapper.mapToDto(item);
+    }
+
+    @Benchmark
+    public byte[] serializeItemResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(itemDto);
+    }
+
+    @Benchmark
+    public byte[] serializeBookingResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookingDto);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.ratelimit.RateLimitFilter;
+import ru.practicum.shareit.ratelimit.RateLimitProperties;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link RateLimitFilter} per request: {@code direct} calls the chain without the filter,
+ * {@code unlimitedRoute} passes through it on a route without a limit, {@code limitedRoute} takes a token
+ * from one of {@code users} buckets, {@code limitedRouteContended} takes it from a single bucket on four
+ * threads and {@code rejected} answers 429.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+    @Param({"1", "10000"})
+    private int users;
+
+    private RateLimitFilter filter;
+    private RateLimitFilter rejectingFilter;
+
+    @State(Scope.Thread)
+    public static class Request {
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private MockHttpServletRequest[] limited;
+        private MockHttpServletRequest unlimited;
+        private FilterChain chain;
+
+        @Setup
+        public void setUp(RateLimitFilterBenchmark benchmark) {
+            limited = new MockHttpServletRequest[benchmark.users];
+            for (int i = 0; i < limited.length; i++) {
+                limited[i] = request("/items/search", i + 1);
+            }
+            unlimited = request("/items", 1);
+            chain = (request, response) -> {
+            };
+        }
+
+        private MockHttpServletRequest next() {
+            return limited[ThreadLocalRandom.current().nextInt(limited.length)];
+        }
+
+        private static MockHttpServletRequest request(String path, long userId) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.addHeader("X-Sharer-User-Id", userId);
+            return request;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel("ru.practicum.shareit", LogLevel.WARN);
+        ObjectMapper objectMapper = new ObjectMapper();
+        filter = new RateLimitFilter(properties(1_000_000_000, 1_000_000_000), objectMapper);
+        rejectingFilter = new RateLimitFilter(properties(1, 0.001), objectMapper);
+    }
+
+    @Benchmark
+    public void direct(Request request) throws IOException, ServletException {
+        request.chain.doFilter(request.next(), request.response);
+    }
+
+    @Benchmark
+    public void unlimitedRoute(Request request) throws IOException, ServletException {
+        filter.doFilter(request.unlimited, request.response, request.chain);
+    }
+
+    @Benchmark
+    public void limitedRoute(Request request) throws IOException, ServletException {
+        filter.doFilter(request.next(), request.response, request.chain);
+    }
+
+    @Benchmark
+    public void rejected(Request request) throws IOException, ServletException {
+        request.response.reset();
+        rejectingFilter.doFilter(request.next(), request.response, request.chain);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void limitedRouteContended(Request request) throws IOException, ServletException {
+        filter.doFilter(request.limited[0], request.response, request.chain);
+    }
+
+    private static RateLimitProperties properties(long capacity, double refillPerSecond) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPath("/items/search");
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(refillPerSecond);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getRoutes().add(route);
+        return properties;
+    }
+}
@@ -2,13 +2,27 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSliceDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
 import ru.practicum.shareit.booking.service.BookingService;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,6 +30,7 @@ import java.util.List;
 @Validated
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final BookingService bookingService;
 
@@ -35,6 +50,36 @@ public class BookingController {
         return savedBookingRequestDto;
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@RequestBody @Size(min = 1, max = 100,
+                                                              message = "Batch should contain from 1 to 100 bookings")
+                                                      List<BookingRequestDto> bookingRequestDtos,
+                                                      @RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
+                                                              message = "User id should be more than 0") Long bookerId,
+                                                      @RequestParam(defaultValue = "atomic") String mode) {
+
+        log.info("Adding batch of {} bookings by user {} in {} mode", bookingRequestDtos.size(), bookerId, mode);
+        List<BookingBatchResultDto> results = bookingService.createBookings(bookingRequestDtos, bookerId,
+                BookingBatchMode.from(mode));
+        log.info("Batch processed: {}", results);
+        return results;
+    }
+
+    @GetMapping("/free-windows")
+    public List<FreeWindowDto> getFreeWindows(@RequestParam @Min(value = 1,
+                                                      message = "Item id should be more than 0") Long itemId,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                              LocalDateTime start,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                              LocalDateTime end,
+                                              @RequestParam(defaultValue = "3") @Min(value = 1,
+                                                      message = "Parameter 'count' must be more than 0") @Max(value = 100,
+                                                      message = "Parameter 'count' must be at most 100") int count) {
+
+        log.info("Looking for {} free windows of item id {} like {} - {}", count, itemId, start, end);
+        return bookingService.findFreeWindows(itemId, start, end, count);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getBooking(@PathVariable Long bookingId,
                                          @RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
@@ -53,9 +98,17 @@ public class BookingController {
                                                     @RequestParam(defaultValue = "0") @Min(value = 0,
                                                             message = "Parameter 'from' must be more than 0") int from,
                                                     @RequestParam(defaultValue = "10") @Min(value = 0,
-                                                            message = "Parameter 'size' must be more than 0") int size) {
+                                                            message = "Parameter 'size' must be more than 0") int size,
+                                                    @RequestParam(required = false) String cursor,
+                                                    HttpServletResponse response) {
 
         log.info("Looking for bookings of user {} with state {}", bookerId, state);
+        if (cursor != null) {
+            BookingSliceDto slice = bookingService.getUserBookingsAfter(bookerId, state, cursor, size);
+            log.info("Bookings found: {}. Next cursor: {}.", slice.getBookings(), slice.getNextCursor());
+            setNextCursor(response, slice);
+            return slice.getBookings();
+        }
         List<BookingResponseDto> bookings = bookingService.getUserBookings(bookerId, state, from, size);
         log.info("Bookings found: {}.", bookings);
         return bookings;
@@ -68,9 +121,17 @@ public class BookingController {
                                                     @RequestParam(defaultValue = "0") @Min(value = 0,
                                                             message = "Parameter 'from' must be more than 0") int from,
                                                     @RequestParam(defaultValue = "10") @Min(value = 0,
-                                                            message = "Parameter 'size' must be more than 0") int size) {
+                                                            message = "Parameter 'size' must be more than 0") int size,
+                                                    @RequestParam(required = false) String cursor,
+                                                    HttpServletResponse response) {
 
         log.info("Looking for bookings of owner {} with state {}", bookerId, state);
+        if (cursor != null) {
+            BookingSliceDto slice = bookingService.getOwnerBookingAfter(bookerId, state, cursor, size);
+            log.info("Bookings found: {}. Next cursor: {}.", slice.getBookings(), slice.getNextCursor());
+            setNextCursor(response, slice);
+            return slice.getBookings();
+        }
         List<BookingResponseDto> bookings = bookingService.getOwnerBooking(bookerId, state, from, size);
         log.info("Bookings found: {}.", bookings);
         return bookings;
@@ -87,4 +148,40 @@ public class BookingController {
         log.info("Booking updated: {}", updatedBooking);
         return updatedBooking;
     }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getOwnerSummary(@RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
+            message = "User id should be more than 0") Long ownerId) {
+
+        log.info("Looking for booking summary of owner {}", ownerId);
+        return bookingService.getOwnerSummary(ownerId);
+    }
+
+    @GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerBookings(@RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
+                                                  message = "User id should be more than 0") Long ownerId,
+                                          @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+
+        log.info("Streaming new bookings of owner {} after event {}", ownerId, lastEventId);
+        return bookingService.streamOwnerBookings(ownerId, lastEventId);
+    }
+
+    @PatchMapping("/owner/decisions")
+    public List<BookingDecisionResultDto> decideBookings(@RequestBody @Size(min = 1, max = 1000,
+                                                                 message = "Decisions should contain from 1 to 1000 entries")
+                                                         List<BookingDecisionDto> decisions,
+                                                         @RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
+                                                                 message = "User id should be more than 0") Long ownerId) {
+
+        log.info("Applying {} booking decisions by user id {}", decisions.size(), ownerId);
+        List<BookingDecisionResultDto> results = bookingService.decideBookings(ownerId, decisions);
+        log.info("Booking decisions applied: {}", results);
+        return results;
+    }
+
+    private void setNextCursor(HttpServletResponse response, BookingSliceDto slice) {
+        if (slice.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, slice.getNextCursor());
+        }
+    }
 }
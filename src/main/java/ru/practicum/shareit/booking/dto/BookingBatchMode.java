@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.exceptions.ValidationException;
+
+public enum BookingBatchMode {
+    ATOMIC,
+    BEST_EFFORT;
+
+    public static BookingBatchMode from(String value) {
+        for (BookingBatchMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new ValidationException("Unknown batch mode: " + value);
+    }
+}
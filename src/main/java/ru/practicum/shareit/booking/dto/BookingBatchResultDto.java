@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BookingBatchResultDto {
+    private int index;
+    private BookingResponseDto booking;
+    private String error;
+}
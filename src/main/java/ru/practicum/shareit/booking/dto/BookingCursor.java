@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Value
+public class BookingCursor {
+    public static final BookingCursor FIRST = new BookingCursor(Timestamp.valueOf("9999-12-31 23:59:59"),
+            Long.MAX_VALUE);
+
+    Timestamp startDate;
+    Long bookingId;
+
+    public static BookingCursor of(Booking booking) {
+        return new BookingCursor(booking.getStartDate(), booking.getId());
+    }
+
+    public static BookingCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('_');
+            return new BookingCursor(Timestamp.valueOf(LocalDateTime.parse(decoded.substring(0, separator))),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ValidationException(String.format("Invalid cursor: %s", cursor));
+        }
+    }
+
+    public String encode() {
+        String raw = startDate.toLocalDateTime() + "_" + bookingId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
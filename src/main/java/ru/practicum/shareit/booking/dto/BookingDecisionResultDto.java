@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.Status;
+
+@Data
+@Builder
+public class BookingDecisionResultDto {
+    private Long bookingId;
+    private Status status;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.Status;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class BookingEventDto {
+    private Long id;
+    private Long itemId;
+    private Long ownerId;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class BookingSummaryDto {
+    private Map<String, Long> states;
+    private List<ItemBookingStatsDto> items;
+}
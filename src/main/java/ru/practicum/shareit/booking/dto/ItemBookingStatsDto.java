@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ItemBookingStatsDto {
+    private Long itemId;
+    private long total;
+    private long waiting;
+    private long approved;
+    private long rejected;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.exceptions;
+
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.util.List;
+
+public class BookingBatchException extends ValidationException {
+    private final List<BookingBatchResultDto> failures;
+
+    public BookingBatchException(String message, List<BookingBatchResultDto> failures) {
+        super(message);
+        this.failures = failures;
+    }
+
+    public List<BookingBatchResultDto> getFailures() {
+        return failures;
+    }
+}
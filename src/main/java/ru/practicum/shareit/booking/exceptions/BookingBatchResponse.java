@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.exceptions;
+
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.exceptions.ErrorResponse;
+
+import java.util.List;
+
+public class BookingBatchResponse extends ErrorResponse {
+    private final List<BookingBatchResultDto> failures;
+
+    public BookingBatchResponse(String error, List<BookingBatchResultDto> failures) {
+        super(error);
+        this.failures = failures;
+    }
+
+    public List<BookingBatchResultDto> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.exceptions;
+
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
+
+import java.util.List;
+
+public class BookingConflictException extends ItemNotAvailableException {
+    private final List<FreeWindowDto> freeWindows;
+
+    public BookingConflictException(String message, List<FreeWindowDto> freeWindows) {
+        super(message);
+        this.freeWindows = freeWindows;
+    }
+
+    public List<FreeWindowDto> getFreeWindows() {
+        return freeWindows;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.exceptions;
+
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
+import ru.practicum.shareit.exceptions.ErrorResponse;
+
+import java.util.List;
+
+public class BookingConflictResponse extends ErrorResponse {
+    private final List<FreeWindowDto> freeWindows;
+
+    public BookingConflictResponse(String error, List<FreeWindowDto> freeWindows) {
+        super(error);
+        this.freeWindows = freeWindows;
+    }
+
+    public List<FreeWindowDto> getFreeWindows() {
+        return freeWindows;
+    }
+}
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.booking.mapper;
 
 import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingStatsDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
@@ -60,10 +63,32 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingEventDto mapToEventDto(Booking booking, Item item) {
+        return BookingEventDto.builder()
+                .id(booking.getId())
+                .itemId(item.getId())
+                .ownerId(item.getOwnerId())
+                .bookerId(booking.getBooker().getId())
+                .start(booking.getStartDate().toLocalDateTime())
+                .end(booking.getEndDate().toLocalDateTime())
+                .status(booking.getStatus())
+                .build();
+    }
+
     public static BookingDtoItem mapToDtoItem(Booking booking) {
         return BookingDtoItem.builder()
                 .id(booking.getId())
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
-}
\ No newline at end of file
+
+    public static ItemBookingStatsDto mapToDto(ItemBookingStats stats) {
+        return ItemBookingStatsDto.builder()
+                .itemId(stats.getItemId())
+                .total(stats.getTotal())
+                .waiting(stats.getWaiting())
+                .approved(stats.getApproved())
+                .rejected(stats.getRejected())
+                .build();
+    }
+}
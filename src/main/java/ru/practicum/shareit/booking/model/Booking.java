@@ -18,7 +18,8 @@ import java.sql.Timestamp;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "booking_id")
     private Long id;
 
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "item_booking_stats")
+public class ItemBookingStats {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private Long ownerId;
+    private long total;
+    private long waiting;
+    private long approved;
+    private long rejected;
+}
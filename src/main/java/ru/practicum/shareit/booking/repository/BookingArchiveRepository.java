@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookingArchiveRepository extends Repository<Booking, Long> {
+    String COLUMNS = "b.booking_id, b.item_id, b.booker_id, b.start_date, b.end_date, b.status";
+
+    @Query(value = "select id from booking_archive_lock where id = 1 for update", nativeQuery = true)
+    Integer lockArchive();
+
+    @Query("select b.id from Booking b where b.endDate < ?1 and b.status in " +
+            "(ru.practicum.shareit.booking.model.Status.APPROVED, ru.practicum.shareit.booking.model.Status.CANCELED) " +
+            "order by b.id")
+    List<Long> findIdsEndedBefore(Timestamp cutoff, Pageable page);
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (booking_id, item_id, booker_id, start_date, end_date, status) " +
+            "select " + COLUMNS + " from bookings b where b.booking_id in (?1)", nativeQuery = true)
+    int copyToArchive(Collection<Long> bookingIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Booking b where b.id in ?1")
+    int deleteByIdIn(Collection<Long> bookingIds);
+
+    @Query(value = "select max(end_date) from bookings_archive", nativeQuery = true)
+    Timestamp findArchivedUntil();
+
+    @Query(value = "select " + COLUMNS + " from (" +
+            "select a.*, row_number() over (partition by a.item_id order by a.start_date desc, a.booking_id desc) rn " +
+            "from bookings_archive a where a.item_id in (?1) and a.status <> 'REJECTED') b " +
+            "where b.rn = 1", nativeQuery = true)
+    List<Booking> findLastArchivedBookings(Collection<Long> itemIds);
+
+    @Query(value = "select * from bookings_archive where booking_id = ?1", nativeQuery = true)
+    Optional<Booking> findArchivedById(Long bookingId);
+
+    @Query(value = "select count(*) from bookings_archive " +
+            "where item_id = ?1 and booker_id = ?2 and status <> 'REJECTED'", nativeQuery = true)
+    long countArchivedByItemIdAndBookerId(Long itemId, Long bookerId);
+
+    @Query(value = "select count(*) from bookings_archive b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1", nativeQuery = true)
+    long countArchivedByItemOwnerId(Long ownerId);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b where b.booker_id = ?1 " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b where b.booker_id = ?1) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?2 offset ?3", nativeQuery = true)
+    List<Booking> findByBookerIdWithArchive(Long userId, int limit, long offset);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b where b.booker_id = ?1 and b.end_date < ?2 " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b where b.booker_id = ?1 and b.end_date < ?2) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?3 offset ?4", nativeQuery = true)
+    List<Booking> findPastByBookerIdWithArchive(Long userId, Timestamp now, int limit, long offset);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?2 offset ?3", nativeQuery = true)
+    List<Booking> findByItemOwnerIdWithArchive(Long userId, int limit, long offset);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and b.end_date < ?2 " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and b.end_date < ?2) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?3 offset ?4", nativeQuery = true)
+    List<Booking> findPastByItemOwnerIdWithArchive(Long userId, Timestamp now, int limit, long offset);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b where b.booker_id = ?1 and " +
+            "(b.start_date < ?2 or (b.start_date = ?2 and b.booking_id < ?3)) " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b where b.booker_id = ?1 and " +
+            "(b.start_date < ?2 or (b.start_date = ?2 and b.booking_id < ?3))) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?4", nativeQuery = true)
+    List<Booking> findByBookerIdBeforeCursorWithArchive(Long userId, Timestamp cursorStart, Long cursorId, int limit);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b where b.booker_id = ?1 and b.end_date < ?2 and " +
+            "(b.start_date < ?3 or (b.start_date = ?3 and b.booking_id < ?4)) " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b where b.booker_id = ?1 and b.end_date < ?2 and " +
+            "(b.start_date < ?3 or (b.start_date = ?3 and b.booking_id < ?4))) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?5", nativeQuery = true)
+    List<Booking> findPastByBookerIdBeforeCursorWithArchive(Long userId, Timestamp now, Timestamp cursorStart,
+                                                            Long cursorId, int limit);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and " +
+            "(b.start_date < ?2 or (b.start_date = ?2 and b.booking_id < ?3)) " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and " +
+            "(b.start_date < ?2 or (b.start_date = ?2 and b.booking_id < ?3))) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?4", nativeQuery = true)
+    List<Booking> findByItemOwnerIdBeforeCursorWithArchive(Long userId, Timestamp cursorStart, Long cursorId,
+                                                           int limit);
+
+    @Query(value = "select * from (" +
+            "select " + COLUMNS + " from bookings b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and b.end_date < ?2 and " +
+            "(b.start_date < ?3 or (b.start_date = ?3 and b.booking_id < ?4)) " +
+            "union all " +
+            "select " + COLUMNS + " from bookings_archive b " +
+            "join items i on i.item_id = b.item_id where i.owner_id = ?1 and b.end_date < ?2 and " +
+            "(b.start_date < ?3 or (b.start_date = ?3 and b.booking_id < ?4))) u " +
+            "order by u.start_date desc, u.booking_id desc limit ?5", nativeQuery = true)
+    List<Booking> findPastByItemOwnerIdBeforeCursorWithArchive(Long userId, Timestamp now, Timestamp cursorStart,
+                                                               Long cursorId, int limit);
+}
@@ -3,12 +3,17 @@ package ru.practicum.shareit.booking.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.LockModeType;
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     Page<Booking> findByBookerIdOrderByStartDateDesc(Long userId, Pageable page);
@@ -33,21 +38,120 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Page<Booking> findByItemOwnerIdAndStatusEqualsOrderByStartDateDesc(Long userId, Status status, Pageable page);
 
-    List<Booking> findByItemId(Long itemId);
+    @Query("select b from Booking b where b.booker.id = ?1 and " +
+            "(b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findByBookerIdBeforeCursor(Long userId, Timestamp cursorStart, Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.booker.id = ?1 and " +
+            "b.startDate < ?2 and b.endDate > ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findCurrentByBookerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart, Long cursorId,
+                                                    Pageable page);
+
+    @Query("select b from Booking b where b.booker.id = ?1 and " +
+            "b.endDate < ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findPastByBookerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart, Long cursorId,
+                                                 Pageable page);
+
+    @Query("select b from Booking b where b.booker.id = ?1 and " +
+            "b.startDate > ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findFutureByBookerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart, Long cursorId,
+                                                   Pageable page);
+
+    @Query("select b from Booking b where b.booker.id = ?1 and " +
+            "b.status = ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findByBookerIdAndStatusBeforeCursor(Long userId, Status status, Timestamp cursorStart,
+                                                      Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.item.ownerId = ?1 and " +
+            "(b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findByItemOwnerIdBeforeCursor(Long userId, Timestamp cursorStart, Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.item.ownerId = ?1 and " +
+            "b.startDate < ?2 and b.endDate > ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findCurrentByItemOwnerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart,
+                                                       Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.item.ownerId = ?1 and " +
+            "b.endDate < ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findPastByItemOwnerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart,
+                                                    Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.item.ownerId = ?1 and " +
+            "b.startDate > ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findFutureByItemOwnerIdBeforeCursor(Long userId, Timestamp now, Timestamp cursorStart,
+                                                      Long cursorId, Pageable page);
+
+    @Query("select b from Booking b where b.item.ownerId = ?1 and " +
+            "b.status = ?2 and " +
+            "(b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4)) " +
+            "order by b.startDate desc, b.id desc")
+    List<Booking> findByItemOwnerIdAndStatusBeforeCursor(Long userId, Status status, Timestamp cursorStart,
+                                                         Long cursorId, Pageable page);
+
+    List<Booking> findByItemIdAndStatusNotAndEndDateAfter(Long itemId, Status status, Timestamp timestamp);
+
+    @Query(value = "select exists (select 1 from bookings b where b.item_id = ?1 and " +
+            "b.status <> 'REJECTED' and b.start_date < ?3 and b.end_date > ?2)", nativeQuery = true)
+    boolean existsOverlapping(Long itemId, Timestamp start, Timestamp end);
+
+    @Query("select distinct b.item.id from Booking b where b.booker.id = ?1")
+    List<Long> findBookedItemIdsByBookerId(Long bookerId);
+
+    @Query("select sum(case when b.startDate < ?2 and b.endDate > ?2 then 1 else 0 end) as currentCount, " +
+            "sum(case when b.endDate < ?2 then 1 else 0 end) as pastCount, " +
+            "sum(case when b.startDate > ?2 then 1 else 0 end) as futureCount " +
+            "from Booking b where b.item.ownerId = ?1")
+    BookingTimeCounts countByItemOwnerIdAndTime(Long ownerId, Timestamp now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id = ?1")
+    Optional<Booking> findByIdForUpdate(Long bookingId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b join fetch b.item where b.id in ?1 order by b.id")
+    List<Booking> findAllWithItemByIdForUpdate(Collection<Long> bookingIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ?1 where b.id in ?2")
+    int updateStatusByIdIn(Status status, Collection<Long> bookingIds);
+
+    List<Booking> findByItemIdInAndStatusNotAndEndDateAfter(Collection<Long> itemIds, Status status, Timestamp timestamp);
 
     List<Booking> findByItemIdAndBookerIdAndStatusNotAndStartDateBefore(Long itemId, Long bookerId, Status status, Timestamp timestamp);
 
-    @Query(value = "select * from bookings where " +
-            "item_id = ?1 and " +
+    @Query(value = "select * from bookings where booking_id in (" +
+            "select booking_id from (" +
+            "select booking_id, row_number() over (partition by item_id order by start_date desc) as rn " +
+            "from bookings where " +
+            "item_id in (?1) and " +
             "status <> 'REJECTED' and " +
-            "start_date < ?2 " +
-            "order by start_date desc limit 1", nativeQuery = true)
-    List<Booking> findLastBooking(Long itemId, Timestamp timestamp);
-
-    @Query(value = "select * from bookings where " +
-            "item_id = ?1 and " +
+            "start_date < ?2) as b " +
+            "where rn = 1)", nativeQuery = true)
+    List<Booking> findLastBookings(Collection<Long> itemIds, Timestamp timestamp);
+
+    @Query(value = "select * from bookings where booking_id in (" +
+            "select booking_id from (" +
+            "select booking_id, row_number() over (partition by item_id order by start_date asc) as rn " +
+            "from bookings where " +
+            "item_id in (?1) and " +
             "status <> 'REJECTED' and " +
-            "start_date > ?2 " +
-            "order by start_date asc limit 1", nativeQuery = true)
-    List<Booking> findNextBooking(Long itemId, Timestamp timestamp);
+            "start_date > ?2) as b " +
+            "where rn = 1)", nativeQuery = true)
+    List<Booking> findNextBookings(Collection<Long> itemIds, Timestamp timestamp);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.repository;
+
+public interface BookingTimeCounts {
+    Long getCurrentCount();
+
+    Long getPastCount();
+
+    Long getFutureCount();
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
+
+import java.util.List;
+
+public interface ItemBookingStatsRepository extends JpaRepository<ItemBookingStats, Long> {
+    List<ItemBookingStats> findAllByOwnerIdOrderByItemId(Long ownerId);
+
+    @Modifying
+    @Query("update ItemBookingStats s set s.total = s.total + ?2, s.waiting = s.waiting + ?3, " +
+            "s.approved = s.approved + ?4, s.rejected = s.rejected + ?5 where s.itemId = ?1")
+    int addCounts(Long itemId, long total, long waiting, long approved, long rejected);
+
+    @Modifying
+    @Query(value = "update item_booking_stats s set " +
+            "total = total - (select count(*) from bookings b where b.item_id = s.item_id and b.booker_id = ?1), " +
+            "waiting = waiting - (select count(*) from bookings b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'WAITING'), " +
+            "approved = approved - (select count(*) from bookings b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'APPROVED'), " +
+            "rejected = rejected - (select count(*) from bookings b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'REJECTED') " +
+            "where s.item_id in (select b.item_id from bookings b where b.booker_id = ?1)", nativeQuery = true)
+    int subtractBookingsOf(Long bookerId);
+
+    @Modifying
+    @Query(value = "update item_booking_stats s set " +
+            "total = total - (select count(*) from bookings_archive b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1), " +
+            "waiting = waiting - (select count(*) from bookings_archive b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'WAITING'), " +
+            "approved = approved - (select count(*) from bookings_archive b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'APPROVED'), " +
+            "rejected = rejected - (select count(*) from bookings_archive b " +
+            "where b.item_id = s.item_id and b.booker_id = ?1 and b.status = 'REJECTED') " +
+            "where s.item_id in (select b.item_id from bookings_archive b where b.booker_id = ?1)",
+            nativeQuery = true)
+    int subtractArchivedBookingsOf(Long bookerId);
+}
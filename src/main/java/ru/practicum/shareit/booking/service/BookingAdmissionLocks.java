@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks keyed by item id. Bookings of one item are admitted one at a time,
+ * while items that hash to different stripes never wait for each other. When called inside a
+ * transaction the locks are held until the transaction completes, so the next admission for the
+ * same item sees the committed booking.
+ */
+@Component
+public class BookingAdmissionLocks {
+    private final ReentrantLock[] stripes;
+
+    @Autowired
+    public BookingAdmissionLocks(@Value("${shareit.booking.lock-stripes:256}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T admit(Long itemId, Supplier<T> admission) {
+        return admit(List.of(itemId), admission);
+    }
+
+    public <T> T admit(Collection<Long> itemIds, Supplier<T> admission) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long itemId : itemIds) {
+            indexes.add(stripeIndex(itemId));
+        }
+        for (Integer index : indexes) {
+            stripes[index].lock();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return admission.get();
+            } finally {
+                unlock(indexes);
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(indexes);
+            }
+        });
+        return admission.get();
+    }
+
+    private void unlock(TreeSet<Integer> indexes) {
+        for (Integer index : indexes.descendingSet()) {
+            stripes[index].unlock();
+        }
+    }
+
+    private int stripeIndex(Long itemId) {
+        int hash = itemId.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
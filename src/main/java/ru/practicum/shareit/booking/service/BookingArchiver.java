@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves bookings that ended before the retention horizon from {@code bookings} to {@code bookings_archive}
+ * in batches, each in its own transaction, and tells listings when a page may reach archived bookings.
+ * Only approved and canceled bookings are archived. Waiting and rejected ones stay in {@code bookings}, where
+ * the WAITING and REJECTED listings, the counters of the owner summary and approval find them.
+ * <p>
+ * Every batch first locks the single {@code booking_archive_lock} row, so archivers scheduled on several
+ * instances take turns and never copy the same bookings. A batch copies and deletes its bookings in one
+ * transaction, so the latest archived end date, read from the database by {@link #archivedUntil()}, is never
+ * before the start of an archived booking. A page sorted by start date whose last booking starts after it
+ * cannot be preceded by an archived booking, so only pages that are short or reach further back need to read
+ * the archive. The horizon has to be read after the page, which then sees every booking archived before.
+ */
+@Component
+@Slf4j
+public class BookingArchiver {
+    private final BookingArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+
+    @Autowired
+    public BookingArchiver(BookingArchiveRepository archiveRepository, PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive.retention:P180D}") Duration retention,
+                           @Value("${shareit.booking.archive.batch-size:1000}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval:PT1H}",
+            initialDelayString = "${shareit.booking.archive.interval:PT1H}")
+    public void archive() {
+        archive(Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+    }
+
+    public int archive(Timestamp cutoff) {
+        int archived = 0;
+        int moved;
+        do {
+            moved = Objects.requireNonNull(transactionTemplate.execute(status -> moveBatch(cutoff)));
+            archived += moved;
+        } while (moved == batchSize);
+        log.info("{} bookings ended before {} archived.", archived, cutoff);
+        return archived;
+    }
+
+    public Timestamp archivedUntil() {
+        return archiveRepository.findArchivedUntil();
+    }
+
+    public boolean reachesArchive(List<Booking> page, int size) {
+        Timestamp until = archivedUntil();
+        if (until == null) {
+            return false;
+        }
+        return page.size() < size || !page.get(page.size() - 1).getStartDate().after(until);
+    }
+
+    private int moveBatch(Timestamp cutoff) {
+        archiveRepository.lockArchive();
+        List<Long> bookingIds = archiveRepository.findIdsEndedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        archiveRepository.copyToArchive(bookingIds);
+        archiveRepository.deleteByIdIn(bookingIds);
+        return bookingIds.size();
+    }
+}
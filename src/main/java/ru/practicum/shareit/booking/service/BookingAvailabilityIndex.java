@@ -0,0 +1,358 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static ru.practicum.shareit.booking.model.Status.REJECTED;
+
+/**
+ * Per-item index of non-rejected booking periods used for availability calendars and suggested free windows.
+ * <p>
+ * The index only sees bookings committed by this instance after a timeline was loaded, so it never decides
+ * admission on its own: a single booking is admitted by an overlap query under the item's row lock, and a batch
+ * checks timelines it has just {@link #reload reloaded} under the same locks. Both evict what they find stale.
+ * <p>
+ * A timeline is loaded lazily on first access and contains only bookings that have not ended yet,
+ * since new bookings can never start in the past. Timelines are held through soft references,
+ * so the JVM drops them under memory pressure and they are reloaded on next access.
+ * Periods are treated as half-open [start, end) ranges.
+ */
+@Component
+@Slf4j
+public class BookingAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, TimelineReference> timelines = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Timeline> collected = new ReferenceQueue<>();
+
+    @Autowired
+    public BookingAvailabilityIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Marks the slots between consecutive {@code boundaries} that overlap a booking or start in the past,
+     * since neither can be booked. Bit {@code i} stands for [boundaries[i], boundaries[i + 1]).
+     */
+    public BitSet busySlots(Long itemId, List<Timestamp> boundaries) {
+        long[] micros = new long[boundaries.size()];
+        for (int i = 0; i < micros.length; i++) {
+            micros[i] = toMicros(boundaries.get(i));
+        }
+        BitSet busy = new BitSet(Math.max(0, micros.length - 1));
+        if (micros.length < 2) {
+            return busy;
+        }
+        int started = Arrays.binarySearch(micros, now());
+        busy.set(0, Math.min(started < 0 ? -started - 1 : started, micros.length - 1));
+        getTimeline(itemId).markBusy(micros, busy);
+        return busy;
+    }
+
+    /**
+     * Returns the starts of up to {@code limit} earliest free windows as long as [start, end)
+     * that begin no earlier than {@code start}, one per gap between bookings.
+     */
+    public List<Timestamp> freeStarts(Long itemId, Timestamp start, Timestamp end, int limit) {
+        long duration = toMicros(end) - toMicros(start);
+        long after = Math.max(toMicros(start), now());
+        List<Timestamp> starts = new ArrayList<>();
+        for (long free : getTimeline(itemId).freeStarts(after, duration, limit)) {
+            starts.add(fromMicros(free));
+        }
+        return starts;
+    }
+
+    /**
+     * Loads the timelines of all given items from the database with a single query, replaces the indexed ones
+     * and returns them. Callers must hold the row locks of the items, so the result is authoritative for them.
+     */
+    public Map<Long, Timeline> reload(Collection<Long> itemIds) {
+        purgeCollected();
+        Map<Long, Timeline> loaded = new HashMap<>();
+        for (Long itemId : itemIds) {
+            loaded.put(itemId, Timeline.EMPTY);
+        }
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        long now = now();
+        List<Booking> bookings = bookingRepository.findByItemIdInAndStatusNotAndEndDateAfter(loaded.keySet(),
+                REJECTED, new Timestamp(now / 1000));
+        log.info("Availability timelines of {} items loaded with {} bookings.", loaded.size(), bookings.size());
+        for (Booking b : bookings) {
+            loaded.computeIfPresent(b.getItem().getId(), (id, timeline) ->
+                    timeline.with(b.getId(), toMicros(b.getStartDate()), toMicros(b.getEndDate()), now));
+        }
+        loaded.forEach((itemId, timeline) -> timelines.put(itemId, new TimelineReference(itemId, timeline, collected)));
+        return loaded;
+    }
+
+    public void addAfterCommit(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        long id = booking.getId();
+        long start = toMicros(booking.getStartDate());
+        long end = toMicros(booking.getEndDate());
+        afterCommit(() -> update(itemId, timeline -> timeline.with(id, start, end, now())));
+    }
+
+    public void removeAfterCommit(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        long id = booking.getId();
+        afterCommit(() -> update(itemId, timeline -> timeline.without(id, now())));
+    }
+
+    public void evict(Long itemId) {
+        timelines.remove(itemId);
+    }
+
+    public void evictAfterCommit(Collection<Long> itemIds) {
+        afterCommit(() -> itemIds.forEach(timelines::remove));
+    }
+
+    private Timeline getTimeline(Long itemId) {
+        purgeCollected();
+        Timeline cached = dereference(timelines.get(itemId));
+        if (cached != null) {
+            return cached;
+        }
+        // Loading under compute() serializes the load with concurrent updates of the same item,
+        // so a booking committed while the timeline is being read cannot be lost.
+        TimelineReference reference = timelines.compute(itemId, (id, current) ->
+                dereference(current) != null ? current : new TimelineReference(id, load(id), collected));
+        return reference.get();
+    }
+
+    private Timeline load(Long itemId) {
+        long now = now();
+        List<Booking> bookings = bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(itemId, REJECTED,
+                new Timestamp(now / 1000));
+        log.info("Availability timeline of item {} loaded with {} bookings.", itemId, bookings.size());
+        Timeline timeline = Timeline.EMPTY;
+        for (Booking b : bookings) {
+            timeline = timeline.with(b.getId(), toMicros(b.getStartDate()), toMicros(b.getEndDate()), now);
+        }
+        return timeline;
+    }
+
+    private void update(Long itemId, TimelineUpdate update) {
+        purgeCollected();
+        timelines.computeIfPresent(itemId, (id, current) -> {
+            Timeline timeline = current.get();
+            return timeline == null ? null : new TimelineReference(id, update.apply(timeline), collected);
+        });
+    }
+
+    private void purgeCollected() {
+        TimelineReference reference;
+        while ((reference = (TimelineReference) collected.poll()) != null) {
+            timelines.remove(reference.itemId, reference);
+        }
+    }
+
+    private static Timeline dereference(TimelineReference reference) {
+        return reference == null ? null : reference.get();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long now() {
+        return toMicros(Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    static long toMicros(Timestamp timestamp) {
+        return timestamp.getTime() * 1000 + (timestamp.getNanos() / 1000) % 1000;
+    }
+
+    static Timestamp fromMicros(long micros) {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(micros, 1_000_000) * 1000);
+        timestamp.setNanos((int) Math.floorMod(micros, 1_000_000) * 1000);
+        return timestamp;
+    }
+
+    private interface TimelineUpdate {
+        Timeline apply(Timeline timeline);
+    }
+
+    private static final class TimelineReference extends SoftReference<Timeline> {
+        private final Long itemId;
+
+        private TimelineReference(Long itemId, Timeline timeline, ReferenceQueue<Timeline> queue) {
+            super(timeline, queue);
+            this.itemId = itemId;
+        }
+    }
+
+    /**
+     * Immutable sorted array of booking periods. {@code maxEnds[i]} holds the latest end among the
+     * first {@code i + 1} periods, which lets a single binary search answer an overlap query.
+     */
+    static final class Timeline {
+        static final Timeline EMPTY = new Timeline(new long[0], new long[0], new long[0]);
+
+        private final long[] ids;
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnds;
+
+        private Timeline(long[] ids, long[] starts, long[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        boolean overlaps(Timestamp start, Timestamp end) {
+            return overlaps(toMicros(start), toMicros(end));
+        }
+
+        boolean overlaps(long start, long end) {
+            int last = lastStartingBefore(end);
+            return last >= 0 && maxEnds[last] > start;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        long[] freeStarts(long after, long duration, int limit) {
+            long[] found = new long[limit];
+            int count = 0;
+            long cursor = after;
+            for (int i = firstEndingAfter(after); i < ids.length && count < limit; i++) {
+                if (starts[i] - cursor >= duration) {
+                    found[count++] = cursor;
+                }
+                cursor = Math.max(cursor, ends[i]);
+            }
+            if (count < limit) {
+                found[count++] = cursor;
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        void markBusy(long[] boundaries, BitSet busy) {
+            long from = boundaries[0];
+            long to = boundaries[boundaries.length - 1];
+            for (int i = firstEndingAfter(from); i < ids.length && starts[i] < to; i++) {
+                if (ends[i] <= from) {
+                    continue;
+                }
+                int first = Math.max(0, slotOf(boundaries, starts[i]));
+                int last = Math.min(boundaries.length - 2, slotOf(boundaries, ends[i] - 1));
+                busy.set(first, last + 1);
+            }
+        }
+
+        Timeline with(long id, long start, long end, long now) {
+            Timeline timeline = without(id, now);
+            if (end <= now) {
+                return timeline;
+            }
+            int position = timeline.lastStartingBefore(start + 1) + 1;
+            int size = timeline.size();
+            long[] newIds = new long[size + 1];
+            long[] newStarts = new long[size + 1];
+            long[] newEnds = new long[size + 1];
+            copyAround(timeline.ids, newIds, position, id);
+            copyAround(timeline.starts, newStarts, position, start);
+            copyAround(timeline.ends, newEnds, position, end);
+            return new Timeline(newIds, newStarts, newEnds);
+        }
+
+        Timeline without(long id, long now) {
+            int kept = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != id && ends[i] > now) {
+                    kept++;
+                }
+            }
+            if (kept == ids.length) {
+                return this;
+            }
+            long[] newIds = new long[kept];
+            long[] newStarts = new long[kept];
+            long[] newEnds = new long[kept];
+            int j = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != id && ends[i] > now) {
+                    newIds[j] = ids[i];
+                    newStarts[j] = starts[i];
+                    newEnds[j] = ends[i];
+                    j++;
+                }
+            }
+            return new Timeline(newIds, newStarts, newEnds);
+        }
+
+        private int firstEndingAfter(long time) {
+            int low = 0;
+            int high = maxEnds.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (maxEnds[middle] > time) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        private static int slotOf(long[] boundaries, long time) {
+            int index = Arrays.binarySearch(boundaries, time);
+            return index < 0 ? -index - 2 : index;
+        }
+
+        private int lastStartingBefore(long time) {
+            int index = Arrays.binarySearch(starts, time);
+            if (index < 0) {
+                return -index - 2;
+            }
+            while (index >= 0 && starts[index] >= time) {
+                index--;
+            }
+            return index;
+        }
+
+        private static void copyAround(long[] source, long[] target, int position, long value) {
+            System.arraycopy(source, 0, target, 0, position);
+            target[position] = value;
+            System.arraycopy(source, position, target, position + 1, source.length - position);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process bus that pushes new bookings to the owners' Server-Sent Events streams.
+ * <p>
+ * Publishing never blocks: every subscriber has a bounded queue drained by a shared pool, and a subscriber
+ * whose queue is full is a slow consumer and is disconnected. Events carry increasing ids and the latest
+ * ones are kept for replay, so a client reconnecting with {@code Last-Event-ID} receives what it missed.
+ * When the missed events are no longer kept (or the id is unknown, e.g. after a restart) the stream starts
+ * with a {@code reset} event telling the client to reload the WAITING bookings instead.
+ * <p>
+ * A client that stops reading blocks its sender in {@link SseEmitter#send}. Such a send is given the send
+ * timeout, after which the subscriber is evicted and its sender interrupted, so stalled clients cannot hold
+ * the whole pool.
+ */
+@Component
+@Slf4j
+public class BookingEventBus implements DisposableBean {
+    public static final String BOOKING_EVENT = "booking";
+    public static final String RESET_EVENT = "reset";
+
+    private static final BusEvent HEARTBEAT = new BusEvent(0, null, null);
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Deque<BusEvent> replay = new ArrayDeque<>();
+    private final Executor executor;
+    private final int bufferSize;
+    private final int replaySize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private long sequence;
+
+    @Autowired
+    public BookingEventBus(@Value("${shareit.booking.stream.buffer-size:256}") int bufferSize,
+                           @Value("${shareit.booking.stream.replay-size:10000}") int replaySize,
+                           @Value("${shareit.booking.stream.timeout:PT30M}") Duration timeout,
+                           @Value("${shareit.booking.stream.send-timeout:PT10S}") Duration sendTimeout,
+                           @Value("${shareit.booking.stream.senders:8}") int senders) {
+        this(bufferSize, replaySize, timeout, sendTimeout, Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "booking-stream");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public BookingEventBus(int bufferSize, int replaySize, Duration timeout, Duration sendTimeout,
+                           Executor executor) {
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(Long ownerId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(ownerId, emitter, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        List<BusEvent> missed = new ArrayList<>();
+        boolean reset = false;
+        synchronized (this) {
+            if (lastEventId != null) {
+                long oldest = replay.isEmpty() ? sequence + 1 : replay.getFirst().id;
+                reset = lastEventId > sequence || lastEventId + 1 < oldest;
+                for (BusEvent event : replay) {
+                    if (!reset && event.id > lastEventId && event.ownerId.equals(ownerId)) {
+                        missed.add(event);
+                    }
+                }
+            }
+            subscribers.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            subscriberCount.incrementAndGet();
+            if (reset) {
+                log.info("Owner {} resumes from unknown event {}, sending reset.", ownerId, lastEventId);
+                enqueue(subscriber, new BusEvent(sequence, ownerId, null));
+            }
+            missed.forEach(event -> enqueue(subscriber, event));
+        }
+        log.info("Owner {} subscribed to booking stream, {} events replayed.", ownerId, missed.size());
+        return emitter;
+    }
+
+    public void publishAfterCommit(Long ownerId, BookingResponseDto booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(ownerId, booking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(ownerId, booking);
+            }
+        });
+    }
+
+    public synchronized void publish(Long ownerId, BookingResponseDto booking) {
+        BusEvent event = new BusEvent(++sequence, ownerId, booking);
+        replay.addLast(event);
+        if (replay.size() > replaySize) {
+            replay.removeFirst();
+        }
+        for (Subscriber subscriber : subscribers.getOrDefault(ownerId, Set.of())) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        subscribers.values().forEach(owned -> owned.forEach(subscriber -> enqueue(subscriber, HEARTBEAT)));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.send-timeout:PT10S}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(owned -> owned.forEach(subscriber -> {
+            synchronized (subscriber) {
+                if (subscriber.sender != null && now - subscriber.sendStarted > sendTimeoutNanos) {
+                    log.warn("Booking stream of owner {} stalled, disconnecting.", subscriber.ownerId);
+                    subscriber.evicted = true;
+                    remove(subscriber);
+                    subscriber.sender.interrupt();
+                }
+            }
+        }));
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, BusEvent event) {
+        if (!subscriber.queue.offer(event)) {
+            log.warn("Owner {} does not keep up with the booking stream, disconnecting.", subscriber.ownerId);
+            remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            BusEvent event;
+            try {
+                while (!subscriber.evicted && (event = subscriber.queue.poll()) != null) {
+                    send(subscriber, event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.info("Booking stream of owner {} closed: {}", subscriber.ownerId, e.getMessage());
+                remove(subscriber);
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+            if (subscriber.evicted) {
+                // Completed by the sender: the stalled send holds the emitter until it returns.
+                subscriber.emitter.complete();
+                return;
+            }
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private static void send(Subscriber subscriber, BusEvent event) throws IOException {
+        synchronized (subscriber) {
+            subscriber.sendStarted = System.nanoTime();
+            subscriber.sender = Thread.currentThread();
+        }
+        try {
+            subscriber.emitter.send(toSse(event));
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sender = null;
+                if (subscriber.evicted) {
+                    // The interrupt was meant for this send only, not for the next task of the pool thread.
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> owned = subscribers.get(subscriber.ownerId);
+        if (owned != null && owned.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.ownerId, (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(BusEvent event) {
+        if (event == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        if (event.booking == null) {
+            return SseEmitter.event().id(String.valueOf(event.id)).name(RESET_EVENT).data("");
+        }
+        return SseEmitter.event()
+                .id(String.valueOf(event.id))
+                .name(BOOKING_EVENT)
+                .data(event.booking, MediaType.APPLICATION_JSON);
+    }
+
+    private static final class BusEvent {
+        private final long id;
+        private final Long ownerId;
+        private final BookingResponseDto booking;
+
+        private BusEvent(long id, Long ownerId, BookingResponseDto booking) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.booking = booking;
+        }
+    }
+
+    private static final class Subscriber {
+        private final Long ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<BusEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean evicted;
+        private Thread sender;
+        private long sendStarted;
+
+        private Subscriber(Long ownerId, SseEmitter emitter, int bufferSize) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
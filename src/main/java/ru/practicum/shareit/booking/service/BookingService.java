@@ -3,43 +3,100 @@ package ru.practicum.shareit.booking.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSliceDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
+import ru.practicum.shareit.booking.exceptions.BookingBatchException;
+import ru.practicum.shareit.booking.exceptions.BookingConflictException;
 import ru.practicum.shareit.booking.exceptions.BookingNotAloudException;
 import ru.practicum.shareit.booking.exceptions.BookingNotFoundException;
 import ru.practicum.shareit.booking.exceptions.ItemNotAvailableException;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingTimeCounts;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
 import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.exceptions.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxPublisher;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.booking.model.Status.*;
 
 @Service
 @Slf4j
 public class BookingService {
+    private static final int SUGGESTED_WINDOWS = 3;
+
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingAdmissionLocks admissionLocks;
+    private final ItemBookingStatsRepository statsRepository;
+    private final ItemBookingStatsRecorder statsRecorder;
+    private final BookingArchiveRepository archiveRepository;
+    private final BookingArchiver archiver;
+    private final OutboxPublisher outbox;
+    private final BookingEventBus eventBus;
 
     @Autowired
-    public BookingService(BookingRepository bookingRepository, UserRepository userRepository, ItemRepository itemRepository) {
+    public BookingService(BookingRepository bookingRepository, UserLookupCache userLookupCache,
+                          ItemRepository itemRepository, BookingAvailabilityIndex availabilityIndex,
+                          BookingAdmissionLocks admissionLocks, ItemBookingStatsRepository statsRepository,
+                          ItemBookingStatsRecorder statsRecorder, BookingArchiveRepository archiveRepository,
+                          BookingArchiver archiver, OutboxPublisher outbox, BookingEventBus eventBus) {
         this.bookingRepository = bookingRepository;
-        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
         this.itemRepository = itemRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.admissionLocks = admissionLocks;
+        this.statsRepository = statsRepository;
+        this.statsRecorder = statsRecorder;
+        this.archiveRepository = archiveRepository;
+        this.archiver = archiver;
+        this.outbox = outbox;
+        this.eventBus = eventBus;
     }
 
     @Transactional
@@ -59,7 +116,11 @@ public class BookingService {
             throw new ValidationException("Booking cannot start or end in past");
         }
 
-        Item item = itemRepository.findById(booking.getItem().getId()).orElseThrow(() -> {
+        return admissionLocks.admit(booking.getItem().getId(), () -> admitBooking(booking));
+    }
+
+    private BookingResponseDto admitBooking(Booking booking) {
+        Item item = itemRepository.findByIdForUpdate(booking.getItem().getId()).orElseThrow(() -> {
             log.error("Item id {} not found", booking.getItem().getId());
             return new ItemNotFoundException(String.format("Item id %s not found", booking.getItem().getId()));
         });
@@ -77,23 +138,190 @@ public class BookingService {
         User user = getUser(booking.getBooker().getId());
 
         if (!isAvailableToBook(booking)) {
-            throw new ItemNotAvailableException("Item is already booked for this period.");
+            throw new BookingConflictException("Item is already booked for this period.",
+                    freeWindows(item.getId(), booking.getStartDate(), booking.getEndDate(), SUGGESTED_WINDOWS));
         }
 
-        Booking savedBooking = bookingRepository.save(booking);
+        Booking savedBooking = userLookupCache.referencing(user.getId(), () -> bookingRepository.saveAndFlush(booking));
         log.info("Booking saved: {}", savedBooking);
+        availabilityIndex.addAfterCommit(savedBooking);
+        statsRecorder.created(item, 1);
+        outbox.append(OutboxEventType.BOOKING_CREATED, savedBooking.getId(),
+                BookingMapper.mapToEventDto(savedBooking, item));
         BookingResponseDto savedBookingRequestDto = BookingMapper.mapToDto(savedBooking, user, item);
         log.info("Booking mapped to DTO: {}", savedBookingRequestDto);
+        eventBus.publishAfterCommit(item.getOwnerId(), savedBookingRequestDto);
         return savedBookingRequestDto;
     }
 
+    /**
+     * Admits a batch of bookings of one booker in a single transaction. Items and their existing
+     * bookings are loaded with one query each and the bookings are inserted in JDBC batches.
+     * Within an item the batch entries are checked in order of their start, so when two entries
+     * overlap the earlier one wins. In {@link BookingBatchMode#ATOMIC} mode any failure rejects
+     * the whole batch, in {@link BookingBatchMode#BEST_EFFORT} mode failed entries are reported
+     * next to the saved ones.
+     */
+    @Transactional
+    public List<BookingBatchResultDto> createBookings(List<BookingRequestDto> requests, Long bookerId,
+                                                      BookingBatchMode mode) {
+        log.info("Adding batch of {} bookings by user {} in {} mode", requests.size(), bookerId, mode);
+        User user = getUser(bookerId);
+
+        String[] errors = new String[requests.size()];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Set<Long> itemIds = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            errors[i] = validateBatchEntry(requests.get(i), now);
+            if (errors[i] == null) {
+                itemIds.add(requests.get(i).getItemId());
+            }
+        }
+
+        return admissionLocks.admit(itemIds, () -> admitBookings(requests, user, mode, itemIds, errors));
+    }
+
+    private String validateBatchEntry(BookingRequestDto request, Timestamp now) {
+        if (request == null || request.getItemId() == null) {
+            return "Item id cannot be null";
+        }
+        if (request.getStart() == null) {
+            return "Start date cannot be null";
+        }
+        if (request.getEnd() == null) {
+            return "End date cannot be null";
+        }
+        if (!request.getStart().isBefore(request.getEnd())) {
+            return "Booking start date should be before booking end date";
+        }
+        if (Timestamp.valueOf(request.getStart()).before(now)) {
+            return "Booking cannot start or end in past";
+        }
+        return null;
+    }
+
+    private List<BookingBatchResultDto> admitBookings(List<BookingRequestDto> requests, User user,
+                                                      BookingBatchMode mode, Set<Long> itemIds, String[] errors) {
+        Map<Long, Item> items = itemIds.isEmpty() ? Map.of() : itemRepository.findAllByIdForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, BookingAvailabilityIndex.Timeline> timelines = availabilityIndex.reload(items.keySet());
+
+        Map<Long, List<Integer>> entriesByItem = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            Long itemId = requests.get(i).getItemId();
+            Item item = items.get(itemId);
+            if (item == null) {
+                errors[i] = String.format("Item id %s not found", itemId);
+            } else if (!item.getIsAvailable()) {
+                errors[i] = String.format("Item id %s not available", itemId);
+            } else if (item.getOwnerId().equals(user.getId())) {
+                errors[i] = "Booking own item is not aloud.";
+            } else {
+                entriesByItem.computeIfAbsent(itemId, id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Booking[] bookings = new Booking[requests.size()];
+        for (List<Integer> entries : entriesByItem.values()) {
+            entries.sort(Comparator.comparing(i -> requests.get(i).getStart()));
+            Timestamp acceptedEnd = null;
+            for (Integer i : entries) {
+                Booking booking = BookingMapper.mapFromDto(requests.get(i), user.getId(), WAITING);
+                if (acceptedEnd != null && booking.getStartDate().before(acceptedEnd)) {
+                    errors[i] = "Booking overlaps another booking of the same item in the batch.";
+                } else if (timelines.get(booking.getItem().getId())
+                        .overlaps(booking.getStartDate(), booking.getEndDate())) {
+                    log.info("Booking not available. Overlap found for item id {}", booking.getItem().getId());
+                    errors[i] = "Item is already booked for this period.";
+                } else {
+                    bookings[i] = booking;
+                    acceptedEnd = booking.getEndDate();
+                }
+            }
+        }
+
+        List<BookingBatchResultDto> failures = new ArrayList<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                failures.add(BookingBatchResultDto.builder().index(i).error(errors[i]).build());
+            }
+        }
+        if (mode == BookingBatchMode.ATOMIC && !failures.isEmpty()) {
+            log.error("Batch rejected, {} of {} bookings failed: {}", failures.size(), requests.size(), failures);
+            throw new BookingBatchException(String.format("Batch rejected, %s of %s bookings failed.",
+                    failures.size(), requests.size()), failures);
+        }
+
+        List<Booking> accepted = Arrays.stream(bookings).filter(Objects::nonNull).collect(Collectors.toList());
+        List<Booking> savedBookings = userLookupCache.referencing(user.getId(), () -> {
+            List<Booking> saved = bookingRepository.saveAll(accepted);
+            bookingRepository.flush();
+            return saved;
+        });
+        log.info("Batch saved {} of {} bookings", savedBookings.size(), requests.size());
+        savedBookings.forEach(availabilityIndex::addAfterCommit);
+        savedBookings.stream()
+                .collect(Collectors.groupingBy(b -> b.getItem().getId(), Collectors.counting()))
+                .forEach((itemId, count) -> statsRecorder.created(items.get(itemId), count));
+        for (Booking savedBooking : savedBookings) {
+            outbox.append(OutboxEventType.BOOKING_CREATED, savedBooking.getId(),
+                    BookingMapper.mapToEventDto(savedBooking, items.get(savedBooking.getItem().getId())));
+        }
+
+        List<BookingBatchResultDto> results = new ArrayList<>(requests.size());
+        Iterator<Booking> saved = savedBookings.iterator();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingBatchResultDto.BookingBatchResultDtoBuilder result = BookingBatchResultDto.builder().index(i);
+            if (bookings[i] != null) {
+                Booking savedBooking = saved.next();
+                Item item = items.get(savedBooking.getItem().getId());
+                BookingResponseDto savedBookingDto = BookingMapper.mapToDto(savedBooking, user, item);
+                eventBus.publishAfterCommit(item.getOwnerId(), savedBookingDto);
+                result.booking(savedBookingDto);
+            } else {
+                result.error(errors[i]);
+            }
+            results.add(result.build());
+        }
+        return results;
+    }
+
+    public SseEmitter streamOwnerBookings(Long ownerId, Long lastEventId) {
+        log.info("Streaming new bookings of owner {} after event {}", ownerId, lastEventId);
+        getUser(ownerId);
+        return eventBus.subscribe(ownerId, lastEventId);
+    }
+
+    public List<FreeWindowDto> findFreeWindows(Long itemId, LocalDateTime start, LocalDateTime end, int count) {
+        log.info("Looking for {} free windows of item id {} like {} - {}", count, itemId, start, end);
+        if (!start.isBefore(end)) {
+            log.error("Booking start date should be before booking end date");
+            throw new ValidationException("Booking start date should be before booking end date");
+        }
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> {
+            log.error("Item id {} not found", itemId);
+            return new ItemNotFoundException(String.format("Item id %s not found", itemId));
+        });
+        if (!item.getIsAvailable()) {
+            log.info("Item id {} is not available for booking.", itemId);
+            return new ArrayList<>();
+        }
+        return freeWindows(itemId, Timestamp.valueOf(start), Timestamp.valueOf(end), count);
+    }
+
+    @Transactional(readOnly = true)
     public BookingResponseDto findBooking(Long bookingId, Long bookerId) {
         log.info("Looking for booking id {} by user id {}", bookingId, bookerId);
         getUser(bookerId);
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> {
-            log.error("Booking id {} not found.", bookingId);
-            return new BookingNotFoundException(String.format("Booking id %s not found.", bookingId));
-        });
+        Booking booking = bookingRepository.findById(bookingId)
+                .or(() -> archiveRepository.findArchivedById(bookingId))
+                .orElseThrow(() -> {
+                    log.error("Booking id {} not found.", bookingId);
+                    return new BookingNotFoundException(String.format("Booking id %s not found.", bookingId));
+                });
         log.info("Booking found: {}.", booking);
 
         if (!(booking.getItem().getOwnerId().equals(bookerId) || booking.getBooker().getId().equals(bookerId))) {
@@ -105,6 +333,7 @@ public class BookingService {
         return bookingRequestDto;
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponseDto> getUserBookings(Long bookerId, String state, int from, int size) {
         log.info("Looking for bookings of user {} with status {}", bookerId, state);
         getUser(bookerId);
@@ -114,14 +343,17 @@ public class BookingService {
         log.info("Now is: {}.", now);
         switch (state) {
             case "ALL":
-                bookings = bookingRepository.findByBookerIdOrderByStartDateDesc(bookerId, page);
+                bookings = withArchive(bookingRepository.findByBookerIdOrderByStartDateDesc(bookerId, page), page,
+                        () -> archiveRepository.findByBookerIdWithArchive(bookerId, size, page.getOffset()));
                 break;
             case "CURRENT":
                 bookings = bookingRepository.findByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(bookerId,
                         now, now, page);
                 break;
             case "PAST":
-                bookings = bookingRepository.findByBookerIdAndEndDateBeforeOrderByStartDateDesc(bookerId, now, page);
+                bookings = withArchive(
+                        bookingRepository.findByBookerIdAndEndDateBeforeOrderByStartDateDesc(bookerId, now, page), page,
+                        () -> archiveRepository.findPastByBookerIdWithArchive(bookerId, now, size, page.getOffset()));
                 break;
             case "FUTURE":
                 bookings = bookingRepository.findByBookerIdAndStartDateAfterOrderByStartDateDesc(bookerId, now, page);
@@ -139,6 +371,7 @@ public class BookingService {
         return bookings.map(BookingMapper::mapToDto).getContent();
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponseDto> getOwnerBooking(Long userId, String state, int from, int size) {
         log.info("Looking for bookings of owner {} with status {}", userId, state);
         getUser(userId);
@@ -148,14 +381,17 @@ public class BookingService {
         log.info("Now is: {}.", now);
         switch (state) {
             case "ALL":
-                bookings = bookingRepository.findByItemOwnerIdOrderByStartDateDesc(userId, page);
+                bookings = withArchive(bookingRepository.findByItemOwnerIdOrderByStartDateDesc(userId, page), page,
+                        () -> archiveRepository.findByItemOwnerIdWithArchive(userId, size, page.getOffset()));
                 break;
             case "CURRENT":
                 bookings = bookingRepository.findByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
                         userId, now, now, page);
                 break;
             case "PAST":
-                bookings = bookingRepository.findByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(userId, now, page);
+                bookings = withArchive(
+                        bookingRepository.findByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(userId, now, page), page,
+                        () -> archiveRepository.findPastByItemOwnerIdWithArchive(userId, now, size, page.getOffset()));
                 break;
             case "FUTURE":
                 bookings = bookingRepository.findByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(userId, now, page);
@@ -173,11 +409,141 @@ public class BookingService {
         return bookings.map(BookingMapper::mapToDto).getContent();
     }
 
+    @Transactional(readOnly = true)
+    public BookingSliceDto getUserBookingsAfter(Long bookerId, String state, String cursor, int size) {
+        log.info("Looking for bookings of user {} with status {} after cursor {}", bookerId, state, cursor);
+        getUser(bookerId);
+        BookingCursor after = BookingCursor.decode(cursor);
+        final PageRequest page = keysetPage(size);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Booking> bookings;
+        switch (state) {
+            case "ALL":
+                bookings = withArchive(bookingRepository.findByBookerIdBeforeCursor(bookerId, after.getStartDate(),
+                        after.getBookingId(), page), page, () -> archiveRepository.findByBookerIdBeforeCursorWithArchive(
+                        bookerId, after.getStartDate(), after.getBookingId(), page.getPageSize()));
+                break;
+            case "CURRENT":
+                bookings = bookingRepository.findCurrentByBookerIdBeforeCursor(bookerId, now, after.getStartDate(),
+                        after.getBookingId(), page);
+                break;
+            case "PAST":
+                bookings = withArchive(bookingRepository.findPastByBookerIdBeforeCursor(bookerId, now,
+                        after.getStartDate(), after.getBookingId(), page), page,
+                        () -> archiveRepository.findPastByBookerIdBeforeCursorWithArchive(bookerId, now,
+                                after.getStartDate(), after.getBookingId(), page.getPageSize()));
+                break;
+            case "FUTURE":
+                bookings = bookingRepository.findFutureByBookerIdBeforeCursor(bookerId, now, after.getStartDate(),
+                        after.getBookingId(), page);
+                break;
+            case "WAITING":
+                bookings = bookingRepository.findByBookerIdAndStatusBeforeCursor(bookerId, WAITING,
+                        after.getStartDate(), after.getBookingId(), page);
+                break;
+            case "REJECTED":
+                bookings = bookingRepository.findByBookerIdAndStatusBeforeCursor(bookerId, REJECTED,
+                        after.getStartDate(), after.getBookingId(), page);
+                break;
+            default:
+                log.error("Incorrect 'state' value: {}", state);
+                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        return toSlice(bookings, size);
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSliceDto getOwnerBookingAfter(Long userId, String state, String cursor, int size) {
+        log.info("Looking for bookings of owner {} with status {} after cursor {}", userId, state, cursor);
+        getUser(userId);
+        BookingCursor after = BookingCursor.decode(cursor);
+        final PageRequest page = keysetPage(size);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Booking> bookings;
+        switch (state) {
+            case "ALL":
+                bookings = withArchive(bookingRepository.findByItemOwnerIdBeforeCursor(userId, after.getStartDate(),
+                        after.getBookingId(), page), page, () -> archiveRepository.findByItemOwnerIdBeforeCursorWithArchive(
+                        userId, after.getStartDate(), after.getBookingId(), page.getPageSize()));
+                break;
+            case "CURRENT":
+                bookings = bookingRepository.findCurrentByItemOwnerIdBeforeCursor(userId, now, after.getStartDate(),
+                        after.getBookingId(), page);
+                break;
+            case "PAST":
+                bookings = withArchive(bookingRepository.findPastByItemOwnerIdBeforeCursor(userId, now,
+                        after.getStartDate(), after.getBookingId(), page), page,
+                        () -> archiveRepository.findPastByItemOwnerIdBeforeCursorWithArchive(userId, now,
+                                after.getStartDate(), after.getBookingId(), page.getPageSize()));
+                break;
+            case "FUTURE":
+                bookings = bookingRepository.findFutureByItemOwnerIdBeforeCursor(userId, now, after.getStartDate(),
+                        after.getBookingId(), page);
+                break;
+            case "WAITING":
+                bookings = bookingRepository.findByItemOwnerIdAndStatusBeforeCursor(userId, WAITING,
+                        after.getStartDate(), after.getBookingId(), page);
+                break;
+            case "REJECTED":
+                bookings = bookingRepository.findByItemOwnerIdAndStatusBeforeCursor(userId, REJECTED,
+                        after.getStartDate(), after.getBookingId(), page);
+                break;
+            default:
+                log.error("Incorrect state value: {}", state);
+                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        return toSlice(bookings, size);
+    }
+
+    /**
+     * Per-state and per-item booking counts of an owner. Status counts come from the counters kept by
+     * {@link ItemBookingStatsRecorder}; CURRENT, PAST and FUTURE depend on the clock rather than on
+     * writes, so they are counted by one aggregate query.
+     */
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getOwnerSummary(Long ownerId) {
+        log.info("Looking for booking summary of owner {}", ownerId);
+        getUser(ownerId);
+        List<ItemBookingStats> stats = statsRepository.findAllByOwnerIdOrderByItemId(ownerId);
+        long total = 0;
+        long waiting = 0;
+        long rejected = 0;
+        for (ItemBookingStats itemStats : stats) {
+            total += itemStats.getTotal();
+            waiting += itemStats.getWaiting();
+            rejected += itemStats.getRejected();
+        }
+
+        Map<String, Long> states = new LinkedHashMap<>();
+        states.put("ALL", total);
+        if (total == 0) {
+            states.put("CURRENT", 0L);
+            states.put("PAST", 0L);
+            states.put("FUTURE", 0L);
+        } else {
+            BookingTimeCounts timeCounts = bookingRepository.countByItemOwnerIdAndTime(ownerId,
+                    Timestamp.valueOf(LocalDateTime.now()));
+            states.put("CURRENT", Objects.requireNonNullElse(timeCounts.getCurrentCount(), 0L));
+            long past = Objects.requireNonNullElse(timeCounts.getPastCount(), 0L);
+            if (archiver.archivedUntil() != null) {
+                past += archiveRepository.countArchivedByItemOwnerId(ownerId);
+            }
+            states.put("PAST", past);
+            states.put("FUTURE", Objects.requireNonNullElse(timeCounts.getFutureCount(), 0L));
+        }
+        states.put("WAITING", waiting);
+        states.put("REJECTED", rejected);
+        return BookingSummaryDto.builder()
+                .states(states)
+                .items(stats.stream().map(BookingMapper::mapToDto).collect(Collectors.toList()))
+                .build();
+    }
+
     @Transactional
     public BookingResponseDto approveBooking(Long ownerId, Boolean approved, Long bookingId) {
         log.info("Updating booking id {} as {} by user id {}", bookingId, approved, ownerId);
         getUser(ownerId);
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> {
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElseThrow(() -> {
             log.error("Booking id {} not found.", bookingId);
             return new BookingNotFoundException(String.format("Booking id %s not found.", bookingId));
         });
@@ -186,34 +552,168 @@ public class BookingService {
             throw new BookingNotFoundException(String.format("Booking id %s not found.", bookingId));
         }
 
+        if (!approved && booking.getStatus().equals(REJECTED)) {
+            log.info("Booking id {} already rejected", bookingId);
+            return BookingMapper.mapToDto(booking);
+        }
         if (!booking.getStatus().equals(APPROVED)) {
+            statsRecorder.statusChanged(booking.getItem().getId(), booking.getStatus(),
+                    approved ? APPROVED : REJECTED, 1);
             if (approved) {
+                if (booking.getStatus().equals(REJECTED)) {
+                    availabilityIndex.addAfterCommit(booking);
+                }
                 booking.setStatus(APPROVED);
                 log.info("Booking status set APPROVED. Item is no longer available");
             } else {
                 booking.setStatus(REJECTED);
+                availabilityIndex.removeAfterCommit(booking);
                 log.info("Booking status set rejected. Item is no longer available");
             }
         } else {
             log.error("Booking id {} already approved", bookingId);
             throw new ItemNotAvailableException(String.format("Booking id %s already approved", bookingId));
         }
+        outbox.append(approved ? OutboxEventType.BOOKING_APPROVED : OutboxEventType.BOOKING_REJECTED, bookingId,
+                BookingMapper.mapToEventDto(booking, booking.getItem()));
         return BookingMapper.mapToDto(booking);
     }
 
-    private boolean isAvailableToBook(Booking booking) {
-        List<Booking> bookings = bookingRepository.findByItemId(booking.getItem().getId());
-        for (Booking b : bookings) {
-            if (!(booking.getEndDate().before(b.getStartDate()) || booking.getStartDate().after(b.getEndDate()))) {
-                log.info("Booking not available. Overlap with {}", b);
-                return false;
+    /**
+     * Applies the owner's decisions on many bookings at once. Bookings are loaded and locked with one query,
+     * ownership is checked in memory and every status change is written by at most one UPDATE per
+     * target status. Decisions that cannot be applied are reported without affecting the others.
+     */
+    @Transactional
+    public List<BookingDecisionResultDto> decideBookings(Long ownerId, List<BookingDecisionDto> decisions) {
+        log.info("Applying {} booking decisions by user id {}", decisions.size(), ownerId);
+        getUser(ownerId);
+        Set<Long> bookingIds = decisions.stream()
+                .filter(decision -> decision != null && decision.getBookingId() != null)
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingIds.isEmpty() ? Map.of() : bookingRepository
+                .findAllWithItemByIdForUpdate(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        List<BookingDecisionResultDto> results = new ArrayList<>(decisions.size());
+        Map<Status, List<Booking>> changes = new EnumMap<>(Status.class);
+        Set<Long> decided = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            BookingDecisionResultDto.BookingDecisionResultDtoBuilder result = BookingDecisionResultDto.builder()
+                    .bookingId(decision == null ? null : decision.getBookingId());
+            String error = null;
+            Booking booking = null;
+            if (decision == null || decision.getBookingId() == null) {
+                error = "Booking id cannot be null";
+            } else if (decision.getApproved() == null) {
+                error = "Decision cannot be null";
+            } else if (!decided.add(decision.getBookingId())) {
+                error = String.format("Duplicate decision for booking id %s", decision.getBookingId());
+            } else {
+                booking = bookings.get(decision.getBookingId());
+                if (booking == null || !booking.getItem().getOwnerId().equals(ownerId)) {
+                    error = String.format("Booking id %s not found.", decision.getBookingId());
+                } else if (booking.getStatus().equals(APPROVED)) {
+                    error = String.format("Booking id %s already approved", decision.getBookingId());
+                }
+            }
+            if (error != null) {
+                results.add(result.error(error).build());
+                continue;
+            }
+            Status status = decision.getApproved() ? APPROVED : REJECTED;
+            if (booking.getStatus() != status) {
+                changes.computeIfAbsent(status, s -> new ArrayList<>()).add(booking);
+            }
+            results.add(result.status(status).build());
+        }
+
+        changes.forEach((status, changed) -> {
+            int updated = bookingRepository.updateStatusByIdIn(status,
+                    changed.stream().map(Booking::getId).collect(Collectors.toList()));
+            log.info("{} bookings set {}", updated, status);
+            changed.stream()
+                    .collect(Collectors.groupingBy(b -> b.getItem().getId(),
+                            Collectors.groupingBy(Booking::getStatus, Collectors.counting())))
+                    .forEach((itemId, counts) -> counts.forEach((from, count) ->
+                            statsRecorder.statusChanged(itemId, from, status, count)));
+            for (Booking booking : changed) {
+                if (status == REJECTED) {
+                    availabilityIndex.removeAfterCommit(booking);
+                } else if (booking.getStatus() == REJECTED) {
+                    availabilityIndex.addAfterCommit(booking);
+                }
+                booking.setStatus(status);
+                outbox.append(status == APPROVED ? OutboxEventType.BOOKING_APPROVED : OutboxEventType.BOOKING_REJECTED,
+                        booking.getId(), BookingMapper.mapToEventDto(booking, booking.getItem()));
             }
+        });
+        return results;
+    }
+
+    private List<FreeWindowDto> freeWindows(Long itemId, Timestamp start, Timestamp end, int count) {
+        Duration duration = Duration.between(start.toLocalDateTime(), end.toLocalDateTime());
+        return availabilityIndex.freeStarts(itemId, start, end, count).stream()
+                .map(free -> FreeWindowDto.builder()
+                        .start(free.toLocalDateTime())
+                        .end(free.toLocalDateTime().plus(duration))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private boolean isAvailableToBook(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        boolean available = !bookingRepository.existsOverlapping(itemId, booking.getStartDate(),
+                booking.getEndDate());
+        if (!available) {
+            log.info("Booking not available. Overlap found for item id {}", itemId);
+            // The overlapping booking may come from another instance, so suggest windows from fresh data.
+            availabilityIndex.evict(itemId);
+        }
+        return available;
+    }
+
+    private PageRequest keysetPage(int size) {
+        if (size < 1) {
+            log.error("Incorrect 'size' value: {}", size);
+            throw new ValidationException("Parameter 'size' must be more than 0");
+        }
+        // One extra row tells whether another page exists without running a count query.
+        return PageRequest.of(0, size + 1);
+    }
+
+    private Page<Booking> withArchive(Page<Booking> bookings, PageRequest page, Supplier<List<Booking>> withArchived) {
+        if (!archiver.reachesArchive(bookings.getContent(), page.getPageSize())) {
+            return bookings;
+        }
+        log.info("Page {} reaches archived bookings.", page.getPageNumber());
+        return new PageImpl<>(withArchived.get());
+    }
+
+    private List<Booking> withArchive(List<Booking> bookings, PageRequest page,
+                                      Supplier<List<Booking>> withArchived) {
+        if (!archiver.reachesArchive(bookings, page.getPageSize())) {
+            return bookings;
+        }
+        log.info("Keyset page reaches archived bookings.");
+        return withArchived.get();
+    }
+
+    private BookingSliceDto toSlice(List<Booking> bookings, int size) {
+        String nextCursor = null;
+        if (bookings.size() > size) {
+            bookings = bookings.subList(0, size);
+            nextCursor = BookingCursor.of(bookings.get(size - 1)).encode();
         }
-        return true;
+        return BookingSliceDto.builder()
+                .bookings(bookings.stream().map(BookingMapper::mapToDto).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
     private User getUser(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() -> {
+        return userLookupCache.findById(userId).orElseThrow(() -> {
             log.error("User id {} not found", userId);
             return new UserNotFoundException(String.format("User id %s not found", userId));
         });
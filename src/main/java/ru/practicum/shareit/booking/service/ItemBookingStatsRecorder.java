@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Keeps the per-item booking counters of the owner dashboard in step with booking writes.
+ * Counters are changed in the caller's transaction, so they commit or roll back together with
+ * the bookings. A counter row is created with the first booking of an item; creation runs under
+ * the item's admission lock, so two bookings of a new item cannot both insert it.
+ */
+@Component
+@Slf4j
+public class ItemBookingStatsRecorder {
+    private final ItemBookingStatsRepository statsRepository;
+
+    @Autowired
+    public ItemBookingStatsRecorder(ItemBookingStatsRepository statsRepository) {
+        this.statsRepository = statsRepository;
+    }
+
+    public void created(Item item, long count) {
+        if (statsRepository.addCounts(item.getId(), count, count, 0, 0) == 0) {
+            log.info("Booking stats of item {} created.", item.getId());
+            statsRepository.save(ItemBookingStats.builder()
+                    .itemId(item.getId())
+                    .ownerId(item.getOwnerId())
+                    .total(count)
+                    .waiting(count)
+                    .build());
+        }
+    }
+
+    public void statusChanged(Long itemId, Status from, Status to, long count) {
+        if (from == to) {
+            return;
+        }
+        statsRepository.addCounts(itemId, 0,
+                delta(Status.WAITING, from, to, count),
+                delta(Status.APPROVED, from, to, count),
+                delta(Status.REJECTED, from, to, count));
+    }
+
+    private static long delta(Status counted, Status from, Status to, long count) {
+        return (to == counted ? count : 0) - (from == counted ? count : 0);
+    }
+}
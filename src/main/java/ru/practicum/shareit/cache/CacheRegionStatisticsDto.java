@@ -0,0 +1,13 @@
+package ru.practicum.shareit.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheRegionStatisticsDto {
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private double hitRatio;
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports hits and misses of the second-level cache regions. Hibernate only collects them when
+ * {@code shareit.hibernate.statistics} is on, so the endpoint exists only then.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.hibernate.statistics", havingValue = "true")
+@Endpoint(id = "hibernatecache")
+public class HibernateCacheEndpoint {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public HibernateCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public Map<String, CacheRegionStatisticsDto> regions() {
+        Statistics statistics = statistics();
+        Map<String, CacheRegionStatisticsDto> regions = new TreeMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            regions.put(region, mapToDto(statistics.getDomainDataRegionStatistics(region)));
+        }
+        return regions;
+    }
+
+    @ReadOperation
+    public CacheRegionStatisticsDto region(@Selector String region) {
+        Statistics statistics = statistics();
+        if (!Arrays.asList(statistics.getSecondLevelCacheRegionNames()).contains(region)) {
+            return null;
+        }
+        return mapToDto(statistics.getDomainDataRegionStatistics(region));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private CacheRegionStatisticsDto mapToDto(CacheRegionStatistics statistics) {
+        long lookups = statistics.getHitCount() + statistics.getMissCount();
+        return CacheRegionStatisticsDto.builder()
+                .hitCount(statistics.getHitCount())
+                .missCount(statistics.getMissCount())
+                .putCount(statistics.getPutCount())
+                .hitRatio(lookups == 0 ? 0 : (double) statistics.getHitCount() / lookups)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JCache region factory that gives every session factory its own cache manager.
+ * <p>
+ * The default manager of a caching provider is shared by the whole JVM, so two application contexts
+ * (tests, benchmarks) running against different databases would read each other's entities, and closing
+ * one of them would close the caches of the other. Regions and their size limits are defined in
+ * {@code application.conf}.
+ */
+public class IsolatedJCacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected URI getUri(SessionFactoryOptions settings, Map properties) {
+        return URI.create("shareit:" + UUID.randomUUID());
+    }
+}
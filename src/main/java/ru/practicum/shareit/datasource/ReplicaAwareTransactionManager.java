@@ -0,0 +1,26 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.CacheStoreMode;
+
+/**
+ * Keeps read-only transactions, which {@link ReplicaRoutingDataSource} may send to a lagging replica, from
+ * putting what they read into the second-level cache: their entity managers only get entities from it.
+ * Otherwise a stale replica row would be cached and served to read-write transactions on the primary.
+ */
+class ReplicaAwareTransactionManager extends JpaTransactionManager {
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+                .getResource(obtainEntityManagerFactory());
+        holder.getEntityManager().setProperty(STORE_MODE,
+                definition.isReadOnly() ? CacheStoreMode.BYPASS : CacheStoreMode.USE);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "shareit.datasource", name = "replicas[0].url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                                      ReplicaProperties replicaProperties) {
+        if (replicaProperties.getLagQuery() == null || replicaProperties.getLagQuery().isBlank()) {
+            throw new IllegalStateException("shareit.datasource.lag-query is required when replicas are configured");
+        }
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        List<DataSource> replicas = replicaProperties.getReplicas().stream()
+                .map(replica -> DataSourceBuilder.create()
+                        .driverClassName(dataSourceProperties.determineDriverClassName())
+                        .url(replica.getUrl())
+                        .username(replica.getUsername())
+                        .password(replica.getPassword())
+                        .type(HikariDataSource.class)
+                        .build())
+                .collect(Collectors.toList());
+        return new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getMaxLag(),
+                replicaProperties.getReadYourWrites(), replicaProperties.getLagQuery());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new ReplicaAwareTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    public RequestUserFilter requestUserFilter() {
+        return new RequestUserFilter();
+    }
+}
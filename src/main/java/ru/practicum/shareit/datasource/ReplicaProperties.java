@@ -0,0 +1,24 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "shareit.datasource")
+public class ReplicaProperties {
+    private List<Replica> replicas = new ArrayList<>();
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration readYourWrites = Duration.ofSeconds(10);
+    private String lagQuery;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
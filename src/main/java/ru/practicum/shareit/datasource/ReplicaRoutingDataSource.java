@@ -0,0 +1,160 @@
+package ru.practicum.shareit.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to replicas and everything else to the primary.
+ * <p>
+ * The lookup happens when a statement needs a physical connection, so the data source must be used through
+ * a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: by then the transaction's
+ * read-only flag is known. Replicas are picked round robin among those whose last lag check, run with the
+ * configured lag query, succeeded within the allowed lag. A replica that refuses a connection is skipped
+ * until the next check. After a user's read-write transaction commits, reads of that user (as seen by
+ * {@link RequestUserFilter}) stay on the primary for the read-your-writes window.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final Map<String, Duration> replicaLags = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Cache<Long, Boolean> recentWriters;
+    private final Duration maxLag;
+    private final String lagQuery;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag,
+                                    Duration readYourWrites, String lagQuery) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>();
+        for (DataSource replica : replicas) {
+            this.replicas.put("replica-" + this.replicas.size(), replica);
+        }
+        this.replicaKeys = new ArrayList<>(this.replicas.keySet());
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWrites)
+                .build();
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.datasource.lag-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try (Connection connection = replica.getValue().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet lag = statement.executeQuery(lagQuery)) {
+                lag.next();
+                replicaLags.put(replica.getKey(), Duration.ofMillis(Math.round(lag.getDouble(1) * 1000)));
+            } catch (SQLException e) {
+                if (replicaLags.remove(replica.getKey()) != null) {
+                    log.warn("Replica {} is unavailable: {}", replica.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(key).getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica {} refused a connection, reading from the primary: {}", key, e.getMessage());
+            replicaLags.remove(key);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    protected String determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteAfterCommit();
+            return PRIMARY;
+        }
+        Long userId = RequestUserFilter.currentUserId();
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            return PRIMARY;
+        }
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+            Duration lag = replicaLags.get(key);
+            if (lag != null && lag.compareTo(maxLag) <= 0) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource replica : replicas.values()) {
+            close(replica);
+        }
+        close(primary);
+    }
+
+    private void recordWriteAfterCommit() {
+        Long userId = RequestUserFilter.currentUserId();
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Exposes the {@code X-Sharer-User-Id} of the current request to {@link ReplicaRoutingDataSource}, which keeps
+ * a user's reads on the primary for a while after their own writes.
+ */
+public class RequestUserFilter extends OncePerRequestFilter {
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+
+    public static Long currentUserId() {
+        return CURRENT_USER.get();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CURRENT_USER.set(parseUserId(request.getHeader(USER_HEADER)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT_USER.remove();
+        }
+    }
+
+    private static Long parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -5,6 +5,10 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.shareit.booking.exceptions.BookingBatchException;
+import ru.practicum.shareit.booking.exceptions.BookingBatchResponse;
+import ru.practicum.shareit.booking.exceptions.BookingConflictException;
+import ru.practicum.shareit.booking.exceptions.BookingConflictResponse;
 import ru.practicum.shareit.booking.exceptions.BookingNotAloudException;
 import ru.practicum.shareit.booking.exceptions.ItemNotAvailableException;
 import ru.practicum.shareit.exceptions.ErrorResponse;
@@ -38,6 +42,18 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler(BookingConflictException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public BookingConflictResponse handleBookingConflictException(final BookingConflictException e) {
+        return new BookingConflictResponse(e.getMessage(), e.getFreeWindows());
+    }
+
+    @ExceptionHandler(BookingBatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public BookingBatchResponse handleBookingBatchException(final BookingBatchException e) {
+        return new BookingBatchResponse(e.getMessage(), e.getFailures());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(final MethodArgumentNotValidException e) {
@@ -0,0 +1,262 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.exceptions.ErrorResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers retried {@code POST /bookings} and {@code POST /items} requests carrying the same
+ * {@code Idempotency-Key} with the response of the first execution instead of executing them again.
+ * <p>
+ * Keys are scoped by the {@code X-Sharer-User-Id} and the path, and remember a SHA-256 hash of the request
+ * body: reusing a key with a different body is answered with 422. Responses are kept in a bounded in-memory
+ * cache for the configured time to live; requests still running are not counted against the bound, so their
+ * keys cannot be evicted. A duplicate arriving while the first request is still running waits for its
+ * response, so concurrent retries coalesce on a single execution. Server errors and failed executions are not
+ * kept, so a later retry executes the request again.
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/bookings", "/items");
+
+    private final ConcurrentMap<String, Execution> executions;
+    private final ObjectMapper objectMapper;
+    private final Duration wait;
+
+    @Autowired
+    public IdempotencyFilter(ObjectMapper objectMapper,
+                             @Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                             @Value("${shareit.idempotency.max-keys:100000}") long maxKeys,
+                             @Value("${shareit.idempotency.wait:PT30S}") Duration wait) {
+        Cache<String, Execution> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxKeys)
+                .weigher((String scope, Execution execution) -> execution.response.isDone() ? 1 : 0)
+                .build();
+        this.executions = cache.asMap();
+        this.objectMapper = objectMapper;
+        this.wait = wait;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(KEY_HEADER) == null
+                || !IDEMPOTENT_PATHS.contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    String.format("%s should contain from 1 to %s characters", KEY_HEADER, MAX_KEY_LENGTH));
+            return;
+        }
+        String scope = String.join(" ", String.valueOf(request.getHeader(USER_HEADER)), path(request), key);
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        byte[] bodyHash = sha256(body);
+
+        while (true) {
+            Execution execution = new Execution(bodyHash, new CompletableFuture<>());
+            Execution first = executions.putIfAbsent(scope, execution);
+            if (first == null) {
+                execute(new BufferedBodyRequest(request, body), response, chain, scope, execution);
+                return;
+            }
+            if (!MessageDigest.isEqual(first.bodyHash, bodyHash)) {
+                log.warn("Request {} reuses its idempotency key with a different body", scope);
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency key was already used with a different request body");
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = first.response.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                continue;
+            } catch (TimeoutException e) {
+                log.warn("Request {} is still in progress after {}", scope, wait);
+                writeError(response, HttpStatus.CONFLICT,
+                        "Request with this idempotency key is still in progress, retry later");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            }
+            log.info("Replaying response to request {}", scope);
+            stored.writeTo(response);
+            return;
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String scope,
+                         Execution execution) throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, cachingResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            executions.remove(scope, execution);
+            execution.response.completeExceptionally(e);
+            throw e;
+        }
+        StoredResponse stored = new StoredResponse(cachingResponse.getStatus(), cachingResponse.getContentType(),
+                cachingResponse.getContentAsByteArray());
+        if (stored.status >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            executions.remove(scope, execution);
+        } else {
+            // Replacing the entry weighs the finished execution, which now counts against the bound.
+            executions.replace(scope, execution,
+                    new Execution(execution.bodyHash, CompletableFuture.completedFuture(stored)));
+        }
+        execution.response.complete(stored);
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Execution {
+        private final byte[] bodyHash;
+        private final CompletableFuture<StoredResponse> response;
+
+        private Execution(byte[] bodyHash, CompletableFuture<StoredResponse> response) {
+            this.bodyHash = bodyHash;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Gives the rest of the chain the body that was read to hash it.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already buffered, so it is available at once and never blocks.
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+    }
+
+    private static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        private StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        private void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setHeader(REPLAYED_HEADER, "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
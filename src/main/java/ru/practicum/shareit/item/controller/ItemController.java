@@ -2,20 +2,28 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.AvailabilityGranularity;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.validation.ValidationGroups;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,10 +37,12 @@ import static ru.practicum.shareit.item.mapper.ItemMapper.mapToDto;
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ItemImportService itemImportService) {
         this.itemService = itemService;
+        this.itemImportService = itemImportService;
     }
 
     @PostMapping
@@ -48,6 +58,18 @@ public class ItemController {
         return mapToDto(savedItem);
     }
 
+    @PostMapping(value = "/bulk", consumes = {ItemImportService.NDJSON, ItemImportService.CSV},
+            produces = ItemImportService.NDJSON)
+    public void importItems(@RequestHeader(value = "X-Sharer-User-Id")
+                            @Min(value = 1, message = "User ID must be more than 0") Long userId,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        log.info("Importing items by user {}", userId);
+        response.setContentType(ItemImportService.NDJSON);
+        itemImportService.importItems(userId, request.getContentType(), request.getInputStream(),
+                response.getOutputStream());
+    }
+
     @PatchMapping("/{itemId}")
     public ItemResponseDto updateItem(@NotNull @Validated(ValidationGroups.Update.class) @RequestBody ItemRequestDto itemRequestDto,
                                       @PathVariable @Min(value = 1, message = "Item ID must be more than 0") Long itemId,
@@ -111,6 +133,30 @@ public class ItemController {
         itemService.deleteItem(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public List<CommentDto> getComments(@PathVariable @Min(value = 1, message = "Item ID must be more than 0") Long itemId,
+                                        @RequestParam(defaultValue = "0") @Min(value = 0,
+                                                message = "Parameter 'from' must be more than 0") int from,
+                                        @RequestParam(defaultValue = "10") @Min(value = 1,
+                                                message = "Parameter 'size' must be more than 0") int size) {
+        log.info("Looking for comments to item id {}", itemId);
+        List<Comment> comments = itemService.getComments(itemId, from, size);
+        log.info("Number of comments found: {}", comments.size());
+        return comments.stream().map(CommentMapper::mapToDto).collect(Collectors.toList());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable @Min(value = 1,
+                                                       message = "Item ID must be more than 0") Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to,
+                                               @RequestParam(defaultValue = "hour") String granularity) {
+        log.info("Looking for availability of item id {} from {} to {} by {}", itemId, from, to, granularity);
+        return itemService.getAvailability(itemId, from, to, AvailabilityGranularity.from(granularity));
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@PathVariable @Min(value = 1, message = "Item ID must be more than 0") Long itemId,
                                  @RequestHeader(value = "X-Sharer-User-Id") @Min(value = 1,
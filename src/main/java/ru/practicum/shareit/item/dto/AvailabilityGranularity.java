@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.time.temporal.ChronoUnit;
+
+public enum AvailabilityGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    AvailabilityGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    public static AvailabilityGranularity from(String value) {
+        for (AvailabilityGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value)) {
+                return granularity;
+            }
+        }
+        throw new ValidationException("Unknown granularity: " + value);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private AvailabilityGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Boolean available;
+    private List<AvailabilitySlotDto> slots;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ItemEventDto {
+    private Long id;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+}
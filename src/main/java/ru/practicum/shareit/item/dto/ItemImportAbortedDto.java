@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ItemImportAbortedDto {
+    private boolean aborted;
+    private String error;
+    private long imported;
+    private long fromRow;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ItemImportResultDto {
+    private Long row;
+    private boolean imported;
+    private Long id;
+    private List<String> errors;
+}
@@ -26,6 +26,8 @@ public class ItemRequestDto {
 
     private List<CommentDto> comments;
 
+    private Long commentsCount;
+
     private Long requestId;
 
     private BookingDtoItem lastBooking;
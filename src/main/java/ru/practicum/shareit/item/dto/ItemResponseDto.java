@@ -14,6 +14,7 @@ public class ItemResponseDto {
     private String description;
     private Boolean available;
     private List<CommentDto> comments;
+    private Long commentsCount;
     private Long requestId;
     private BookingDtoItem lastBooking;
     private BookingDtoItem nextBooking;
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.mapper;
 
+import ru.practicum.shareit.item.dto.ItemEventDto;
 import ru.practicum.shareit.item.dto.ItemInRequestDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
@@ -56,6 +57,7 @@ public class ItemMapper {
                     .map(CommentMapper::mapToDto)
                     .collect(Collectors.toList()));
         }
+        itemDto.setCommentsCount(item.getCommentsCount());
 
         if (item.getRequest() != null) {
             itemDto.setRequestId(item.getRequest().getId());
@@ -70,6 +72,17 @@ public class ItemMapper {
         return itemDto;
     }
 
+    public static ItemEventDto mapToEventDto(Item item) {
+        return ItemEventDto.builder()
+                .id(item.getId())
+                .ownerId(item.getOwnerId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getIsAvailable())
+                .requestId(item.getRequest() == null ? null : item.getRequest().getId())
+                .build();
+    }
+
     public static ItemInRequestDto mapToItemRequestDto(Item item) {
         return ItemInRequestDto.builder()
                 .id(item.getId())
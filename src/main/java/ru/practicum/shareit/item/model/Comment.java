@@ -18,18 +18,19 @@ import java.sql.Timestamp;
 @Table(name = "comments")
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comments_seq", allocationSize = 50)
     @Column(name = "comment_id")
     private Long id;
 
     @NotEmpty(message = "Message cannot be empty")
     private String text;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
 
@@ -40,7 +41,7 @@ public class Comment {
         return "Comment{" +
                 "id=" + id +
                 ", text='" + text + '\'' +
-                ", author=" + author +
+                ", authorId=" + author.getId() +
                 ", itemId=" + item.getId() +
                 ", created=" + created +
                 '}';
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.request.model.Request;
 
@@ -18,9 +20,12 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "items_seq", allocationSize = 50)
     @Column(name = "item_id")
     private Long id;
 
@@ -35,11 +40,11 @@ public class Item {
 
     private Long ownerId;
 
-    @OneToMany(fetch = FetchType.EAGER)
-    @JoinColumn(name = "item_id")
-    private List<Comment> comments = new ArrayList<>();
+    private transient List<Comment> comments = new ArrayList<>();
 
-    @ManyToOne
+    private transient Long commentsCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private Request request;
 
@@ -60,7 +65,7 @@ public class Item {
                 ", description='" + description + '\'' +
                 ", isAvailable=" + isAvailable +
                 ", ownerId=" + ownerId +
-                ", comments=" + comments +
+                ", commentsCount=" + commentsCount +
                 ", request=" + requestId +
                 ", lastBooking=" + lastBooking +
                 ", nextBooking=" + nextBooking +
@@ -1,7 +1,33 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "author")
+    Page<Comment> findByItemId(Long itemId, Pageable page);
+
+    @Query(value = "select comment_id from (select comment_id, row_number() over (partition by item_id " +
+            "order by created desc, comment_id desc) as rn from comments where item_id in (?1)) as c " +
+            "where c.rn <= ?2", nativeQuery = true)
+    List<Long> findLatestIds(Collection<Long> itemIds, int limit);
+
+    @Query("select c from Comment c join fetch c.author where c.id in ?1 order by c.created desc, c.id desc")
+    List<Comment> findWithAuthorByIdIn(Collection<Long> commentIds);
+
+    @Query("select c.item.id as itemId, count(c) as count from Comment c where c.item.id in ?1 group by c.item.id")
+    List<ItemCommentCount> countByItemIds(Collection<Long> itemIds);
+
+    interface ItemCommentCount {
+        Long getItemId();
+
+        Long getCount();
+    }
 }
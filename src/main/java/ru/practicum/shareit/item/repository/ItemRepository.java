@@ -3,12 +3,32 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface ItemRepository extends JpaRepository<Item, Long> {
     Page<Item> findAllByOwnerId(Long ownerId, Pageable page);
 
-    Page<Item> findItemByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(String text,
-                                                                                                       String text2,
-                                                                                                       Pageable page);
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @Query("select i from Item i where i.isAvailable = true and " +
+            "(lower(i.name) like ?1 escape '\\' or lower(i.description) like ?1 escape '\\') order by i.id")
+    List<Item> searchAvailable(String pattern, Pageable page);
+
+    @Query("select i.id from Item i left join i.request r where i.ownerId = ?1 or r.requester.id = ?1")
+    List<Long> findIdsByOwnerIdOrRequesterId(Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> findByIdForUpdate(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id in ?1 order by i.id")
+    List<Item> findAllByIdForUpdate(Collection<Long> itemIds);
 }
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the transient comments and comment counts of items for item listings, the item view and search.
+ * <p>
+ * Only the {@link #PREVIEW_SIZE} latest comments of each item are loaded, by one ranked id query and one query
+ * fetching them with their authors, and all comments are counted by a grouped query. The full history is
+ * served page by page from {@code GET /items/{itemId}/comments}.
+ */
+@Component
+public class ItemCommentLoader {
+    public static final int PREVIEW_SIZE = 10;
+
+    private final CommentRepository commentRepository;
+
+    @Autowired
+    public ItemCommentLoader(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+
+    public void load(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).distinct().collect(Collectors.toList());
+        Map<Long, List<Comment>> comments = new HashMap<>();
+        Map<Long, Long> counts = new HashMap<>();
+        commentRepository.countByItemIds(itemIds)
+                .forEach(count -> counts.put(count.getItemId(), count.getCount()));
+        if (!counts.isEmpty()) {
+            List<Long> commentIds = commentRepository.findLatestIds(itemIds, PREVIEW_SIZE);
+            if (!commentIds.isEmpty()) {
+                comments = commentRepository.findWithAuthorByIdIn(commentIds).stream()
+                        .collect(Collectors.groupingBy(c -> c.getItem().getId()));
+            }
+        }
+        for (Item item : items) {
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            item.setCommentsCount(counts.getOrDefault(item.getId(), 0L));
+        }
+    }
+}
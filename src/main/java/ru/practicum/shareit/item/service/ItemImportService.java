@@ -0,0 +1,259 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemImportAbortedDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.user.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.service.UserLookupCache;
+import ru.practicum.shareit.validation.ValidationGroups;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams items from an NDJSON or CSV body into the database.
+ * <p>
+ * Rows are read one line at a time and stored in chunks, each chunk in its own transaction with
+ * batched inserts. The result of every row is written to the response as an NDJSON line as soon
+ * as its chunk completes, so neither the request nor the response is held in memory.
+ * CSV input starts with a header naming the columns: name, description, available, requestId.
+ * <p>
+ * An import is not atomic: chunks stored before a failure stay committed. If a chunk cannot be stored the
+ * import stops and the last line is an {@link ItemImportAbortedDto} with the number of items imported and the
+ * first row that was not stored, so the client can resume from that row.
+ */
+@Component
+@Slf4j
+public class ItemImportService {
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private final ItemService itemService;
+    private final UserLookupCache userLookupCache;
+    private final RequestRepository requestRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ItemImportService(ItemService itemService, UserLookupCache userLookupCache,
+                             RequestRepository requestRepository, ObjectMapper objectMapper, Validator validator,
+                             @Value("${shareit.item.import.chunk-size:500}") int chunkSize) {
+        this.itemService = itemService;
+        this.userLookupCache = userLookupCache;
+        this.requestRepository = requestRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public void importItems(Long ownerId, String contentType, InputStream body, OutputStream out)
+            throws IOException {
+        log.info("Importing items of user {} from {}", ownerId, contentType);
+        if (!userLookupCache.exists(ownerId)) {
+            log.info("User id {} not found", ownerId);
+            throw new UserNotFoundException(String.format("User id %s not found", ownerId));
+        }
+        boolean csv = contentType != null && contentType.startsWith(CSV);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = csv ? readHeader(reader) : null;
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+        long imported = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parse(++rowNumber, line, columns, ownerId));
+                if (chunk.size() == chunkSize) {
+                    imported += store(chunk, out);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += store(chunk, out);
+            }
+        } catch (RuntimeException e) {
+            long fromRow = chunk.get(0).number;
+            log.error("Import of items of user {} aborted at row {} after {} items", ownerId, fromRow, imported, e);
+            writeLine(out, ItemImportAbortedDto.builder()
+                    .aborted(true)
+                    .error(e instanceof UserNotFoundException ? e.getMessage() : "Items could not be stored")
+                    .imported(imported)
+                    .fromRow(fromRow)
+                    .build());
+            out.flush();
+            return;
+        }
+        log.info("Items imported: {} of {}", imported, rowNumber);
+    }
+
+    private Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new ValidationException("CSV header is missing");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        return columns;
+    }
+
+    private Row parse(long rowNumber, String line, Map<String, Integer> columns, Long ownerId) {
+        Row row = new Row(rowNumber);
+        ItemRequestDto dto;
+        try {
+            dto = columns == null ? objectMapper.readValue(line, ItemRequestDto.class) : fromCsv(line, columns);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            row.errors.add("Malformed row: " + e.getMessage());
+            return row;
+        }
+        for (ConstraintViolation<ItemRequestDto> violation : validator.validate(dto, ValidationGroups.Create.class)) {
+            row.errors.add(violation.getMessage());
+        }
+        if (row.errors.isEmpty()) {
+            row.item = ItemMapper.mapFromDto(dto, ownerId);
+        }
+        return row;
+    }
+
+    private ItemRequestDto fromCsv(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        String available = column(values, columns, "available");
+        String requestId = column(values, columns, "requestId");
+        if (available != null && !available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("available should be true or false");
+        }
+        return ItemRequestDto.builder()
+                .name(column(values, columns, "name"))
+                .description(column(values, columns, "description"))
+                .available(available == null ? null : Boolean.valueOf(available))
+                .requestId(requestId == null ? null : Long.valueOf(requestId))
+                .build();
+    }
+
+    private String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private long store(List<Row> chunk, OutputStream out) throws IOException {
+        Set<Long> requestIds = chunk.stream()
+                .filter(r -> r.item != null && r.item.getRequest() != null)
+                .map(r -> r.item.getRequest().getId())
+                .collect(Collectors.toSet());
+        Set<Long> existingRequests = requestIds.isEmpty() ? Set.of() : requestRepository.findAllById(requestIds)
+                .stream()
+                .map(Request::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        List<Item> items = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.item == null) {
+                continue;
+            }
+            if (row.item.getRequest() != null && !existingRequests.contains(row.item.getRequest().getId())) {
+                row.errors.add(String.format("Request id %s not found", row.item.getRequest().getId()));
+                row.item = null;
+                continue;
+            }
+            items.add(row.item);
+        }
+        if (!items.isEmpty()) {
+            itemService.addItems(items);
+        }
+        // Saved items are no longer needed; keep the persistence context from growing with the import.
+        entityManager.clear();
+
+        for (Row row : chunk) {
+            writeLine(out, ItemImportResultDto.builder()
+                    .row(row.number)
+                    .imported(row.item != null)
+                    .id(row.item != null ? row.item.getId() : null)
+                    .errors(row.errors.isEmpty() ? null : row.errors)
+                    .build());
+        }
+        out.flush();
+        return items.size();
+    }
+
+    private void writeLine(OutputStream out, Object record) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(record));
+        out.write('\n');
+    }
+
+    private static final class Row {
+        private final long number;
+        private final List<String> errors = new ArrayList<>();
+        private Item item;
+
+        private Row(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -4,56 +4,110 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.AvailabilityGranularity;
+import ru.practicum.shareit.item.dto.AvailabilitySlotDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.exceptions.CommentNotAllowedException;
 import ru.practicum.shareit.item.exceptions.ItemNotFoundException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxPublisher;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class ItemService {
+    private static final int MAX_AVAILABILITY_SLOTS = 1000;
+
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemCommentLoader commentLoader;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingArchiveRepository archiveRepository;
+    private final OutboxPublisher outbox;
 
     @Autowired
-    public ItemService(ItemRepository itemRepository, UserRepository userRepository,
-                       BookingRepository bookingRepository, CommentRepository commentRepository) {
+    public ItemService(ItemRepository itemRepository, UserLookupCache userLookupCache,
+                       BookingRepository bookingRepository, CommentRepository commentRepository,
+                       ItemCommentLoader commentLoader, BookingAvailabilityIndex availabilityIndex,
+                       BookingArchiveRepository archiveRepository, OutboxPublisher outbox) {
         this.itemRepository = itemRepository;
-        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
+        this.commentLoader = commentLoader;
+        this.availabilityIndex = availabilityIndex;
+        this.archiveRepository = archiveRepository;
+        this.outbox = outbox;
     }
 
+    @Transactional
     public Item addItem(Item item) {
         log.info("Adding item {}", item);
-        User user = userRepository.findById(item.getOwnerId()).orElseThrow(() -> {
-            log.info("Item id {} not found ", item.getId());
+        userLookupCache.findById(item.getOwnerId()).orElseThrow(() -> {
+            log.info("User id {} not found ", item.getOwnerId());
             return new ItemNotFoundException(String.format("User id %s not found", item.getOwnerId()));
         });
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = userLookupCache.referencing(item.getOwnerId(), () -> itemRepository.saveAndFlush(item));
+        outbox.append(OutboxEventType.ITEM_CREATED, savedItem.getId(), ItemMapper.mapToEventDto(savedItem));
         log.info("Item added {}.", item);
         return savedItem;
     }
 
+    @Transactional
+    public List<Item> addItems(List<Item> items) {
+        log.info("Adding {} items", items.size());
+        Set<Long> ownerIds = items.stream().map(Item::getOwnerId).collect(Collectors.toSet());
+        for (Long ownerId : ownerIds) {
+            userLookupCache.findById(ownerId).orElseThrow(() -> {
+                log.info("User id {} not found ", ownerId);
+                return new UserNotFoundException(String.format("User id %s not found", ownerId));
+            });
+        }
+        List<Item> savedItems = userLookupCache.referencing(ownerIds, () -> {
+            List<Item> saved = itemRepository.saveAll(items);
+            itemRepository.flush();
+            return saved;
+        });
+        for (Item savedItem : savedItems) {
+            outbox.append(OutboxEventType.ITEM_CREATED, savedItem.getId(), ItemMapper.mapToEventDto(savedItem));
+        }
+        log.info("Items added: {}", savedItems.size());
+        return savedItems;
+    }
+
+    @Transactional
     public Item updateItem(Item item) {
         log.info("Updating item with: {}", item);
-        Item savedItem = itemRepository.findById(item.getId()).orElseThrow(() -> {
+        Item savedItem = itemRepository.findByIdForUpdate(item.getId()).orElseThrow(() -> {
             log.info("Item id {} not found ", item.getId());
             return new ItemNotFoundException(String.format("Item id %s not found", item.getId()));
         });
@@ -71,10 +125,13 @@ public class ItemService {
         if (item.getIsAvailable() != null) {
             savedItem.setIsAvailable(item.getIsAvailable());
         }
-        log.info("Item updated: {}", savedItem);
-        return itemRepository.save(savedItem);
+        Item updatedItem = itemRepository.save(savedItem);
+        outbox.append(OutboxEventType.ITEM_UPDATED, updatedItem.getId(), ItemMapper.mapToEventDto(updatedItem));
+        log.info("Item updated: {}", updatedItem);
+        return updatedItem;
     }
 
+    @Transactional(readOnly = true)
     public List<Item> getAllItems(Long userId, int from, int size) {
         Page<Item> items;
         final PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
@@ -86,11 +143,13 @@ public class ItemService {
             items = itemRepository.findAllByOwnerId(userId, page);
             setBookingsToItems(items.getContent());
         }
+        commentLoader.load(items.getContent());
 
         log.info("Number of items found: {}", items);
         return items.getContent();
     }
 
+    @Transactional(readOnly = true)
     public Item getItem(Long itemId, Long userId) {
         log.info("Looking for item id {} by user {}", itemId, userId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> {
@@ -99,10 +158,9 @@ public class ItemService {
         });
         log.info("Item found: {}", item);
         if (item.getOwnerId().equals(userId)) {
-            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
-            item.setLastBooking(getLastBooking(itemId, now));
-            item.setNextBooking(getNextBooking(itemId, now));
+            setBookingsToItems(List.of(item));
         }
+        commentLoader.load(List.of(item));
         return item;
     }
 
@@ -112,13 +170,13 @@ public class ItemService {
         }
         log.info("Looking for item by key word: \"{}\". User id: {}", text, userId);
         final PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        Page<Item> items = itemRepository
-                .findItemByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(text, text, page);
+        List<Item> items = itemRepository.searchAvailable(likePattern(text), page);
 
-        setBookingsToItems(items.getContent());
+        setBookingsToItems(items);
+        commentLoader.load(items);
 
-        log.info("Number of items found: {}", items);
-        return items.getContent();
+        log.info("Number of items found: {}", items.size());
+        return items;
     }
 
     public void deleteItem(Long itemId, Long userId) {
@@ -135,6 +193,7 @@ public class ItemService {
         itemRepository.deleteById(itemId);
     }
 
+    @Transactional
     public Comment addComment(Comment comment) {
         log.info("Adding comment {}.", comment);
         Item savedItem = itemRepository.findById(comment.getItem().getId()).orElseThrow(() -> {
@@ -143,7 +202,7 @@ public class ItemService {
         });
         comment.setItem(savedItem);
 
-        User user = userRepository.findById(comment.getAuthor().getId()).orElseThrow(() -> {
+        User user = userLookupCache.findById(comment.getAuthor().getId()).orElseThrow(() -> {
             log.info("Item id {} not found ", comment.getAuthor().getId());
             return new UserNotFoundException(String.format("User id %s not found", comment.getAuthor().getId()));
         });
@@ -152,42 +211,131 @@ public class ItemService {
         List<Booking> bookings = bookingRepository.findByItemIdAndBookerIdAndStatusNotAndStartDateBefore(savedItem.getId(),
                 user.getId(), Status.REJECTED, Timestamp.valueOf(LocalDateTime.now()));
 
-        if (bookings.isEmpty()) {
+        if (bookings.isEmpty()
+                && archiveRepository.countArchivedByItemIdAndBookerId(savedItem.getId(), user.getId()) == 0) {
             log.info("User id {} did not book item and cannot leave comment", user.getId());
             throw new CommentNotAllowedException(
                     String.format("User id %s did not book item and cannot leave comment", user.getId()));
         }
         comment.setCreated(Timestamp.valueOf(LocalDateTime.now()));
-        Comment savedComment = commentRepository.save(comment);
+        Comment savedComment = userLookupCache.referencing(user.getId(), () -> commentRepository.saveAndFlush(comment));
         log.info("Comment saved: {}", savedComment);
         return savedComment;
     }
 
+    @Transactional(readOnly = true)
+    public List<Comment> getComments(Long itemId, int from, int size) {
+        log.info("Looking for comments to item id {}. Paging from {}, size {}.", itemId, from, size);
+        if (!itemRepository.existsById(itemId)) {
+            log.info("Item id {} not found ", itemId);
+            throw new ItemNotFoundException(String.format("Item id %s not found", itemId));
+        }
+        final PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size,
+                Sort.by(Sort.Direction.DESC, "created", "id"));
+        Page<Comment> comments = commentRepository.findByItemId(itemId, page);
+        log.info("Number of comments found: {}", comments.getNumberOfElements());
+        return comments.getContent();
+    }
+
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                               AvailabilityGranularity granularity) {
+        log.info("Looking for availability of item id {} from {} to {} by {}", itemId, from, to, granularity);
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Parameter 'from' should be before 'to'");
+        }
+        List<LocalDateTime> boundaries = new ArrayList<>();
+        LocalDateTime boundary = from.truncatedTo(granularity.getUnit());
+        boundaries.add(boundary);
+        while (boundary.isBefore(to)) {
+            if (boundaries.size() > MAX_AVAILABILITY_SLOTS) {
+                throw new ValidationException(String.format("Availability is limited to %s slots",
+                        MAX_AVAILABILITY_SLOTS));
+            }
+            boundary = boundary.plus(1, granularity.getUnit());
+            boundaries.add(boundary);
+        }
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> {
+            log.info("Item id {} not found ", itemId);
+            return new ItemNotFoundException(String.format("Item id %s not found", itemId));
+        });
+        int slotCount = boundaries.size() - 1;
+        ItemAvailabilityDto.ItemAvailabilityDtoBuilder availability = ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .granularity(granularity)
+                .from(boundaries.get(0))
+                .to(boundaries.get(slotCount));
+        if (!Boolean.TRUE.equals(item.getIsAvailable())) {
+            log.info("Item id {} is not available for booking.", itemId);
+            return availability.available(false).slots(new ArrayList<>()).build();
+        }
+        BitSet busy = availabilityIndex.busySlots(itemId,
+                boundaries.stream().map(Timestamp::valueOf).collect(Collectors.toList()));
+
+        // Consecutive slots of the same state are merged into one run.
+        List<AvailabilitySlotDto> slots = new ArrayList<>();
+        int start = 0;
+        while (start < slotCount) {
+            boolean free = !busy.get(start);
+            int end = free ? busy.nextSetBit(start) : busy.nextClearBit(start);
+            if (end < 0 || end > slotCount) {
+                end = slotCount;
+            }
+            slots.add(AvailabilitySlotDto.builder()
+                    .start(boundaries.get(start))
+                    .end(boundaries.get(end))
+                    .free(free)
+                    .build());
+            start = end;
+        }
+        return availability.available(true).slots(slots).build();
+    }
+
     private List<Item> setBookingsToItems(List<Item> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
         Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, Booking> lastBookings = mapByItemId(bookingRepository.findLastBookings(itemIds, now));
+        addLastArchivedBookings(itemIds, lastBookings);
+        Map<Long, Booking> nextBookings = mapByItemId(bookingRepository.findNextBookings(itemIds, now));
         for (Item i : items) {
-            i.setLastBooking(getLastBooking(i.getId(), now));
-            i.setNextBooking(getNextBooking(i.getId(), now));
+            i.setLastBooking(lastBookings.get(i.getId()));
+            i.setNextBooking(nextBookings.get(i.getId()));
             log.info("Item {} last booking {}, next booking {}.", i, i.getLastBooking(), i.getNextBooking());
         }
         return items;
     }
 
-    private Booking getLastBooking(Long itemId, Timestamp now) {
-        List<Booking> b = bookingRepository.findLastBooking(itemId, now);
-        log.info("Bookings found: {}", b);
-        if (!b.isEmpty()) {
-            return b.get(0);
+    private void addLastArchivedBookings(List<Long> itemIds, Map<Long, Booking> lastBookings) {
+        Timestamp archivedUntil = archiveRepository.findArchivedUntil();
+        if (archivedUntil == null) {
+            return;
+        }
+        // Archived bookings start before the horizon, so they cannot precede a last booking starting after it.
+        List<Long> reachingArchive = itemIds.stream()
+                .filter(id -> !lastBookings.containsKey(id)
+                        || !lastBookings.get(id).getStartDate().after(archivedUntil))
+                .collect(Collectors.toList());
+        if (reachingArchive.isEmpty()) {
+            return;
+        }
+        for (Booking archived : archiveRepository.findLastArchivedBookings(reachingArchive)) {
+            lastBookings.merge(archived.getItem().getId(), archived,
+                    (hot, old) -> hot.getStartDate().before(old.getStartDate()) ? old : hot);
         }
-        return null;
     }
 
-    private Booking getNextBooking(Long itemId, Timestamp now) {
-        List<Booking> b = bookingRepository.findNextBooking(itemId, now);
-        log.info("Bookings found: {}", b);
-        if (!b.isEmpty()) {
-            return b.get(0);
-        }
-        return null;
+    private Map<Long, Booking> mapByItemId(List<Booking> bookings) {
+        log.info("Bookings found: {}", bookings);
+        return bookings.stream().collect(Collectors.toMap(b -> b.getItem().getId(), Function.identity()));
+    }
+
+    private static String likePattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a file as JSON lines and forces them to disk before the batch counts as delivered.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.file")
+public class FileOutboxSink implements OutboxSink {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public FileOutboxSink(@Value("${shareit.outbox.file}") Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write outbox events to " + file, e);
+        }
+    }
+
+    private String toJson(OutboxEvent event) {
+        try {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("id", event.getId())
+                    .put("type", event.getEventType().name())
+                    .put("aggregateId", event.getAggregateId())
+                    .put("created", event.getCreated().toLocalDateTime().toString());
+            line.set("payload", objectMapper.readTree(event.getPayload()));
+            return objectMapper.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to every {@link OutboxSink} in batches of the oldest events.
+ * <p>
+ * A batch is locked, published and deleted in one transaction, so it is removed only after all sinks
+ * accepted it and concurrent dispatchers do not deliver it twice. If a sink fails the batch stays in the
+ * outbox and the run stops; the next run delivers it again, to the sinks that already had it as well.
+ * Delivery lag is the age of the oldest pending event, published as the {@code outbox.lag} gauge.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher implements MeterBinder {
+    private final OutboxEventRepository outboxRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxRepository, List<OutboxSink> sinks,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${shareit.outbox.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        if (sinks.isEmpty()) {
+            log.warn("No outbox sinks configured, events are not recorded.");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.dispatch-interval:PT1S}")
+    public int dispatch() {
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        int dispatched = 0;
+        int published;
+        try {
+            do {
+                published = Objects.requireNonNull(transactionTemplate.execute(status -> dispatchBatch()));
+                dispatched += published;
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Outbox dispatch failed after {} events, retrying on next run.", dispatched, e);
+        }
+        return dispatched;
+    }
+
+    public Duration lag() {
+        Timestamp oldest = outboxRepository.findOldestCreated();
+        if (oldest == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(oldest.toLocalDateTime(), LocalDateTime.now());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("outbox.lag", this, dispatcher -> dispatcher.lag().toMillis() / 1000.0)
+                .description("Age of the oldest undelivered outbox event")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxRepository.findOldestForUpdate(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        for (OutboxSink sink : sinks) {
+            sink.publish(events);
+        }
+        outboxRepository.deleteByIdIn(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()));
+        log.info("{} outbox events dispatched.", events.size());
+        return events.size();
+    }
+}
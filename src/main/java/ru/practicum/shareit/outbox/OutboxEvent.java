@@ -0,0 +1,32 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Enumerated(value = EnumType.STRING)
+    private OutboxEventType eventType;
+
+    private Long aggregateId;
+
+    private String payload;
+
+    private Timestamp created;
+}
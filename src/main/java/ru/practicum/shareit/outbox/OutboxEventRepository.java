@@ -0,0 +1,25 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findOldestForUpdate(Pageable page);
+
+    @Query("select min(e.created) from OutboxEvent e")
+    Timestamp findOldestCreated();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from OutboxEvent e where e.id in ?1")
+    int deleteByIdIn(Collection<Long> eventIds);
+}
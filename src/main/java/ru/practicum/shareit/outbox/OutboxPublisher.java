@@ -0,0 +1,50 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appends events to the outbox in the caller's transaction. Without any {@link OutboxSink} nothing would ever
+ * drain the outbox, so events are then dropped instead of being stored.
+ */
+@Component
+public class OutboxPublisher {
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    @Autowired
+    public OutboxPublisher(OutboxEventRepository outboxRepository, ObjectMapper objectMapper,
+                           List<OutboxSink> sinks) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = !sinks.isEmpty();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OutboxEventType eventType, Long aggregateId, Object payload) {
+        if (!enabled) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + eventType + " event of " + aggregateId, e);
+        }
+        outboxRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .created(Timestamp.valueOf(LocalDateTime.now()))
+                .build());
+    }
+}
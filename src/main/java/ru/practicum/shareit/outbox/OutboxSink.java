@@ -0,0 +1,11 @@
+package ru.practicum.shareit.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of outbox events. A batch counts as delivered when {@link #publish} returns; an exception
+ * leaves it in the outbox to be delivered again, so sinks must tolerate duplicates.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events);
+}
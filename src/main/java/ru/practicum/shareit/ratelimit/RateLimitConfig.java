@@ -0,0 +1,18 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "shareit.rate-limit", name = "routes[0].path")
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+        return new RateLimitFilter(properties, objectMapper);
+    }
+}
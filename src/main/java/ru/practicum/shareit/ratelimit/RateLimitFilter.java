@@ -0,0 +1,128 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.exceptions.ErrorResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits requests to the configured routes, each covering its path and everything below it, with a {@link TokenBucket} per route and {@code X-Sharer-User-Id}
+ * (the remote address when the header is missing). A request counts against the route with the longest path
+ * matching it on segment boundaries, so {@code /bookings/owner} limits {@code /bookings/owner/summary} but not
+ * {@code /bookings/owners}. Requests finding the bucket empty are answered with
+ * 429 and a {@code Retry-After} of the seconds until the next token. Buckets live in a bounded cache and are
+ * dropped after being idle for the configured time, which should be longer than an empty bucket takes to
+ * refill.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final List<LimitedRoute> routes = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+        this(properties, objectMapper, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, LongSupplier clock) {
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            if (route.getCapacity() < 1 || route.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Rate limit of %s should have a positive capacity and refill rate", route.getPath()));
+            }
+            routes.add(new LimitedRoute(route, properties));
+        }
+        routes.sort(Comparator.comparingInt((LimitedRoute route) -> route.path.length()).reversed());
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LimitedRoute route = route(request);
+        String user = request.getHeader(USER_HEADER);
+        if (user == null) {
+            user = request.getRemoteAddr();
+        }
+        long wait = route.tryConsume(user, clock.getAsLong());
+        if (wait == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.debug("Rate limit of {} exceeded by {}, retry after {}s", route.path, user, retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(String.format("Too many requests to %s, retry after %s s", route.path, retryAfter)));
+    }
+
+    private LimitedRoute route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (LimitedRoute route : routes) {
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static final class LimitedRoute {
+        private final String path;
+        private final long capacity;
+        private final double refillPerSecond;
+        private final Cache<String, TokenBucket> buckets;
+
+        private LimitedRoute(RateLimitProperties.Route route, RateLimitProperties properties) {
+            this.path = stripTrailingSlash(route.getPath());
+            this.capacity = route.getCapacity();
+            this.refillPerSecond = route.getRefillPerSecond();
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(properties.getIdleTimeout())
+                    .maximumSize(properties.getMaxBuckets())
+                    .build();
+        }
+
+        private boolean matches(String requestPath) {
+            return requestPath.startsWith(path) && (requestPath.length() == path.length()
+                    || requestPath.charAt(path.length()) == '/');
+        }
+
+        private static String stripTrailingSlash(String path) {
+            return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        }
+
+        private long tryConsume(String user, long now) {
+            TokenBucket bucket = buckets.getIfPresent(user);
+            if (bucket == null) {
+                bucket = buckets.get(user, key -> new TokenBucket(capacity, refillPerSecond, now));
+            }
+            return bucket.tryConsume(now);
+        }
+    }
+}
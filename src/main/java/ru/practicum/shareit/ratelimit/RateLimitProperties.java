@@ -0,0 +1,23 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "shareit.rate-limit")
+public class RateLimitProperties {
+    private List<Route> routes = new ArrayList<>();
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private long maxBuckets = 100_000;
+
+    @Data
+    public static class Route {
+        private String path;
+        private long capacity;
+        private double refillPerSecond;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill time the bucket keeps the single instant at
+ * which it will be full again, so taking a token is one compare-and-set: the bucket has a token when that
+ * instant, pushed one token interval further, is no more than a full bucket away from now.
+ */
+class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long capacity, double refillPerSecond, long now) {
+        this.nanosPerToken = Math.max(1, Math.round(1_000_000_000 / refillPerSecond));
+        this.capacityNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token at {@code now} (in {@link System#nanoTime()} units) and returns 0, or returns how many
+     * nanoseconds to wait for the next token when the bucket is empty.
+     */
+    long tryConsume(long now) {
+        while (true) {
+            long full = fullAt.get();
+            long next = (full - now > 0 ? full : now) + nanosPerToken;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+}
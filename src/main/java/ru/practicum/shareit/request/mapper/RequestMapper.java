@@ -1,12 +1,14 @@
 package ru.practicum.shareit.request.mapper;
 
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.stream.Collectors;
 
 public class RequestMapper {
@@ -22,13 +24,17 @@ public class RequestMapper {
     }
 
     public static ItemRequestResponseDto mapToDto(Request request) {
+        return mapToDto(request, request.getItems());
+    }
+
+    public static ItemRequestResponseDto mapToDto(Request request, List<Item> items) {
         ItemRequestResponseDto itemRequestRequestDto = ItemRequestResponseDto.builder()
                 .id(request.getId())
                 .description(request.getDescription())
                 .created(request.getCreated().toLocalDateTime())
                 .build();
-        if (request.getItems() != null) {
-            itemRequestRequestDto.setItems(request.getItems().stream()
+        if (items != null) {
+            itemRequestRequestDto.setItems(items.stream()
                     .map(ItemMapper::mapToItemRequestDto)
                     .collect(Collectors.toList()));
         }
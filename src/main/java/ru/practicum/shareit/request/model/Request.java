@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -18,10 +20,13 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "item_requests")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item_requests")
 public class Request {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_seq")
+    @SequenceGenerator(name = "request_seq", sequenceName = "item_requests_seq", allocationSize = 50)
     @Column(name = "request_id")
     private Long id;
 
@@ -31,7 +36,7 @@ public class Request {
     @Column(name = "created")
     private Timestamp created;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id")
     private User requester;
 
@@ -2,13 +2,24 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.Request;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface RequestRepository extends JpaRepository<Request, Long> {
     Page<Request> findAllByRequesterId(Long userId, Pageable page);
 
-    @Query(value = "select * from item_requests as r where requester_id <> ?1 order by r.created", nativeQuery = true)
+    @Query("select r.id from Request r where r.requester.id = ?1")
+    List<Long> findIdsByRequesterId(Long userId);
+
+    @Query(value = "select * from item_requests as r where requester_id <> ?1 order by r.created",
+            countQuery = "select count(*) from item_requests where requester_id <> ?1", nativeQuery = true)
     Page<Request> findAllOrderByCreated(Long userId, Pageable page);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Request> findWithItemsById(Long requestId);
 }
@@ -5,17 +5,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.exceptions.RequestNotFoundException;
-import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.request.mapper.RequestMapper.mapFromDto;
 import static ru.practicum.shareit.request.mapper.RequestMapper.mapToDto;
@@ -24,28 +29,37 @@ import static ru.practicum.shareit.request.mapper.RequestMapper.mapToDto;
 @Slf4j
 public class RequestService {
     private final RequestRepository requestRepository;
-    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final ItemRepository itemRepository;
 
     @Autowired
-    public RequestService(RequestRepository requestRepository, UserRepository userRepository) {
+    public RequestService(RequestRepository requestRepository, UserLookupCache userLookupCache,
+                          ItemRepository itemRepository) {
         this.requestRepository = requestRepository;
-        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
+        this.itemRepository = itemRepository;
     }
 
+    @Transactional
     public ItemRequestResponseDto addRequest(ItemRequestRequestDto itemRequestRequestDto) {
         log.info("Adding request: {}", itemRequestRequestDto);
-        User requester = doesUserExist(itemRequestRequestDto.getRequesterId());
+        Long requesterId = itemRequestRequestDto.getRequesterId();
+        User requester = userLookupCache.findById(requesterId).orElseThrow(() -> {
+            log.error("User id {} not found.", requesterId);
+            return new UserNotFoundException(String.format("User id %s not found.", requesterId));
+        });
         Request request = mapFromDto(itemRequestRequestDto);
         request.setRequester(requester);
-        Request savedRequest = requestRepository.save(request);
+        Request savedRequest = userLookupCache.referencing(requesterId, () -> requestRepository.saveAndFlush(request));
         log.info("Request saved: {}", savedRequest);
         return mapToDto(savedRequest);
     }
 
+    @Transactional(readOnly = true)
     public ItemRequestResponseDto findRequest(Long requestId, Long userId) {
         log.info("Looking for request id {} by user {}", requestId, userId);
         doesUserExist(userId);
-        Request request = requestRepository.findById(requestId).orElseThrow(() -> {
+        Request request = requestRepository.findWithItemsById(requestId).orElseThrow(() -> {
             log.error("Request id {} not found.", requestId);
             return new RequestNotFoundException(String.format("Request id %s not found.", requestId));
         });
@@ -53,23 +67,37 @@ public class RequestService {
         return mapToDto(request);
     }
 
+    @Transactional(readOnly = true)
     public List<ItemRequestResponseDto> findUserRequest(Long userId, int from, int size) {
         log.info("Looking for requests from user id {}. Paging from {}, size {}.", userId, from, size);
         doesUserExist(userId);
         final PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
         Page<Request> requests = requestRepository.findAllByRequesterId(userId, page);
-        return requests.map(RequestMapper::mapToDto).getContent();
+        return mapWithItems(requests.getContent());
     }
 
+    @Transactional(readOnly = true)
     public List<ItemRequestResponseDto> findAllRequests(Long userId, int from, int size) {
         log.info("Looking for requests/ Paging from {}, size {}.", from, size);
         final PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
         Page<Request> requests = requestRepository.findAllOrderByCreated(userId, page);
-        return requests.map(RequestMapper::mapToDto).getContent();
+        return mapWithItems(requests.getContent());
+    }
+
+    private List<ItemRequestResponseDto> mapWithItems(List<Request> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> requestIds = requests.stream().map(Request::getId).collect(Collectors.toList());
+        Map<Long, List<Item>> items = itemRepository.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(i -> i.getRequest().getId()));
+        return requests.stream()
+                .map(r -> mapToDto(r, items.getOrDefault(r.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
 
     private User doesUserExist(Long id) {
-        return userRepository.findById(id).orElseThrow(() -> {
+        return userLookupCache.findById(id).orElseThrow(() -> {
             log.error("User id {} not found.", id);
             return new UserNotFoundException(String.format("User id %s not found.", id));
         });
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-memory cache of users in front of {@link UserRepository} for the per-request existence checks.
+ * <p>
+ * Only existing users are cached, so a newly created user is visible immediately. Misses are loaded in a
+ * read-write transaction, which reads the primary; a miss inside a read-only transaction, which may read a
+ * lagging replica, is answered without caching. Entries expire after
+ * the configured time to live and are invalidated by {@link UserService} on update and delete. Writes that
+ * reference a user check it here too and run through {@link #referencing}, which turns the foreign key
+ * failure caused by a user deleted on another instance into a missing user.
+ * Callers get a copy of the cached user, so changing it does not affect the cache.
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics with tag {@code cache=users}.
+ */
+@Component
+@Slf4j
+public class UserLookupCache implements MeterBinder {
+    private final UserRepository userRepository;
+    private final Cache<Long, User> users;
+    private final TransactionTemplate primaryReads;
+    private final TransactionTemplate separateReads;
+
+    @Autowired
+    public UserLookupCache(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                           @Value("${shareit.user.cache.ttl:PT5M}") Duration ttl,
+                           @Value("${shareit.user.cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.separateReads = new TransactionTemplate(transactionManager);
+        this.separateReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Optional<User> findById(Long userId) {
+        User user = users.getIfPresent(userId);
+        if (user == null) {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return userRepository.findById(userId).map(this::copy);
+            }
+            Optional<User> loaded = primaryReads.execute(status -> userRepository.findById(userId));
+            if (loaded.isEmpty()) {
+                return loaded;
+            }
+            user = copy(loaded.get());
+            users.put(userId, user);
+        }
+        return Optional.of(copy(user));
+    }
+
+    public <T> T referencing(Long userId, Supplier<T> write) {
+        return referencing(List.of(userId), write);
+    }
+
+    /**
+     * Runs a write referencing users checked through this cache. The write should flush its inserts, so that
+     * a user deleted by another instance, whose entry may still be cached here, fails it on a foreign key.
+     * The users are then looked up in a separate transaction, as the failed one can no longer query, and a
+     * missing one is dropped from the cache and reported as not found. Other violations are rethrown.
+     */
+    public <T> T referencing(Collection<Long> userIds, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            Set<Long> found = separateReads.execute(status -> userRepository.findAllById(userIds).stream()
+                    .map(User::getId)
+                    .collect(Collectors.toSet()));
+            Long missing = userIds.stream().filter(userId -> !found.contains(userId)).findFirst().orElseThrow(() -> e);
+            log.info("User id {} was deleted before a write referencing it", missing);
+            userIds.stream().filter(userId -> !found.contains(userId)).forEach(users::invalidate);
+            throw new UserNotFoundException(String.format("User id %s not found", missing));
+        }
+    }
+
+    public boolean exists(Long userId) {
+        return findById(userId).isPresent();
+    }
+
+    public void invalidate(Long userId) {
+        log.debug("Evicting user id {} from cache", userId);
+        users.invalidate(userId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+    }
+
+    private User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+    }
+}
@@ -3,21 +3,50 @@ package ru.practicum.shareit.user.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.exceptions.EmailRegisteredException;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 
 @Component
 @Slf4j
 public class UserService {
     private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemBookingStatsRepository statsRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemRepository itemRepository;
+    private final RequestRepository requestRepository;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserLookupCache userLookupCache,
+                       EntityManagerFactory entityManagerFactory, ItemBookingStatsRepository statsRepository,
+                       BookingRepository bookingRepository, BookingAvailabilityIndex availabilityIndex,
+                       ItemRepository itemRepository, RequestRepository requestRepository) {
         this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.statsRepository = statsRepository;
+        this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.itemRepository = itemRepository;
+        this.requestRepository = requestRepository;
     }
 
     public User add(User user) {
@@ -40,7 +69,7 @@ public class UserService {
 
         if (user.getEmail() != null) {
             if (savedUser.getEmail().equals(user.getEmail())) {
-                return userRepository.save(savedUser);
+                return save(savedUser);
             } else if (userRepository.findByEmailIgnoreCase(user.getEmail()) != null) {
                 throw new EmailRegisteredException("User with such email already registered");
             } else if (!savedUser.getEmail().equals(user.getEmail())) {
@@ -48,7 +77,7 @@ public class UserService {
                 log.info("Email updated.");
             }
         }
-        return userRepository.save(savedUser);
+        return save(savedUser);
     }
 
     public User get(Long userId) {
@@ -68,8 +97,48 @@ public class UserService {
         return users;
     }
 
+    @Transactional
     public void delete(Long userId) {
         log.info("Deleting user id {}", userId);
+        // Bookings of the user are removed by a cascading foreign key as well, so take them out of the counters first.
+        statsRepository.subtractBookingsOf(userId);
+        statsRepository.subtractArchivedBookingsOf(userId);
+        availabilityIndex.evictAfterCommit(bookingRepository.findBookedItemIdsByBookerId(userId));
+        // Items and requests of the user, and items answering those requests, are removed by cascading foreign
+        // keys, bypassing the second-level cache, so they are evicted by id once the delete is committed.
+        List<Long> itemIds = itemRepository.findIdsByOwnerIdOrRequesterId(userId);
+        List<Long> requestIds = requestRepository.findIdsByRequesterId(userId);
         userRepository.deleteById(userId);
+        invalidate(userId);
+        afterCommit(() -> {
+            Cache cache = entityManagerFactory.getCache();
+            itemIds.forEach(itemId -> cache.evict(Item.class, itemId));
+            requestIds.forEach(requestId -> cache.evict(Request.class, requestId));
+        });
+    }
+
+    private User save(User user) {
+        User savedUser = userRepository.save(user);
+        invalidate(user.getId());
+        return savedUser;
+    }
+
+    private void invalidate(Long userId) {
+        userLookupCache.invalidate(userId);
+        // A concurrent read may load the old row again before the change commits, so invalidate once more then.
+        afterCommit(() -> userLookupCache.invalidate(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
\ No newline at end of file
@@ -1,6 +1,15 @@
+-- Schema created by schema.sql before migrations were introduced. Databases that already have it
+-- are baselined at this version instead of running it (spring.flyway.baseline-on-migrate).
+
+create sequence if not exists shareit_users_seq start with 1 increment by 50;
+create sequence if not exists item_requests_seq start with 1 increment by 50;
+create sequence if not exists items_seq start with 1 increment by 50;
+create sequence if not exists bookings_seq start with 1 increment by 50;
+create sequence if not exists comments_seq start with 1 increment by 50;
+
 create table if not exists shareit_users
 (
-    user_id bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    user_id bigint                                  NOT NULL,
     email   VARCHAR(255)                            NOT NULL,
     name    VARCHAR(255)                            NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (user_id),
@@ -9,7 +18,7 @@ create table if not exists shareit_users
 
 create table if not exists item_requests
 (
-    request_id   bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    request_id   bigint                                  NOT NULL,
     description  VARCHAR(255)                            NOT NULL,
     created      TIMESTAMP WITHOUT TIME ZONE,
     requester_id BIGINT                                  NOT NULL,
@@ -19,7 +28,7 @@ create table if not exists item_requests
 
 create table if not exists items
 (
-    item_id     bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    item_id     bigint                                  NOT NULL,
     name        VARCHAR(255)                            NOT NULL,
     description VARCHAR(1000)                           NOT NULL,
     available   BOOLEAN                                 NOT NULL,
@@ -32,7 +41,7 @@ create table if not exists items
 
 create table if not exists bookings
 (
-    booking_id bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id bigint                                  NOT NULL,
     item_id    BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE,
@@ -45,7 +54,7 @@ create table if not exists bookings
 
 create table if not exists comments
 (
-    comment_id bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    comment_id bigint                                  NOT NULL,
     text       VARCHAR(1000)                           NOT NULL,
     item_id    BIGINT                                  NOT NULL,
     author_id  BIGINT                                  NOT NULL,
@@ -54,3 +63,21 @@ create table if not exists comments
     CONSTRAINT fk_comment_items FOREIGN KEY (item_id) REFERENCES items (item_id) ON delete CASCADE,
     CONSTRAINT fk_user FOREIGN KEY (author_id) REFERENCES shareit_users (user_id) ON delete CASCADE
 );
+
+create index if not exists idx_bookings_booker_start on bookings (booker_id, start_date desc, booking_id desc);
+create index if not exists idx_bookings_item_start on bookings (item_id, start_date desc, booking_id desc);
+create index if not exists idx_comments_item_created on comments (item_id, created desc, comment_id desc);
+
+create table if not exists item_booking_stats
+(
+    item_id  bigint                                  NOT NULL,
+    owner_id BIGINT                                  NOT NULL,
+    total    BIGINT                                  NOT NULL,
+    waiting  BIGINT                                  NOT NULL,
+    approved BIGINT                                  NOT NULL,
+    rejected BIGINT                                  NOT NULL,
+    CONSTRAINT pk_item_booking_stats PRIMARY KEY (item_id),
+    CONSTRAINT fk_stats_items FOREIGN KEY (item_id) REFERENCES items (item_id) ON delete CASCADE
+);
+
+create index if not exists idx_item_booking_stats_owner on item_booking_stats (owner_id, item_id);
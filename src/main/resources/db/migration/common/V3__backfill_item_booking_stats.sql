@@ -0,0 +1,13 @@
+-- Counters for items that were booked before item_booking_stats was maintained.
+
+insert into item_booking_stats (item_id, owner_id, total, waiting, approved, rejected)
+select i.item_id,
+       i.owner_id,
+       count(*),
+       sum(case when b.status = 'WAITING' then 1 else 0 end),
+       sum(case when b.status = 'APPROVED' then 1 else 0 end),
+       sum(case when b.status = 'REJECTED' then 1 else 0 end)
+from items i
+         join bookings b on b.item_id = i.item_id
+where not exists(select 1 from item_booking_stats s where s.item_id = i.item_id)
+group by i.item_id, i.owner_id;
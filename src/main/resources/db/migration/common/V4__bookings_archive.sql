@@ -0,0 +1,18 @@
+-- Bookings that ended before the retention horizon are moved here by BookingArchiver, keeping the hot
+-- bookings table and its indexes small. Listings read this table only once a page reaches past the horizon.
+
+create table if not exists bookings_archive
+(
+    booking_id bigint                                  NOT NULL,
+    item_id    BIGINT                                  NOT NULL,
+    booker_id  BIGINT                                  NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE,
+    end_date   TIMESTAMP WITHOUT TIME ZONE,
+    status     VARCHAR(50),
+    CONSTRAINT pk_booking_archive PRIMARY KEY (booking_id),
+    CONSTRAINT fk_booking_archive_items FOREIGN KEY (item_id) REFERENCES items (item_id) ON delete CASCADE,
+    CONSTRAINT fk_booking_archive_booker FOREIGN KEY (booker_id) REFERENCES shareit_users (user_id) ON delete CASCADE
+);
+
+create index if not exists idx_bookings_archive_booker_start on bookings_archive (booker_id, start_date desc, booking_id desc);
+create index if not exists idx_bookings_archive_item_start on bookings_archive (item_id, start_date desc, booking_id desc);
@@ -0,0 +1,14 @@
+-- Domain events written in the same transaction as the change they describe and removed once
+-- OutboxDispatcher has delivered them.
+
+create sequence if not exists outbox_events_seq start with 1 increment by 50;
+
+create table if not exists outbox_events
+(
+    event_id     bigint                                  NOT NULL,
+    event_type   VARCHAR(50)                             NOT NULL,
+    aggregate_id BIGINT                                  NOT NULL,
+    payload      VARCHAR(10000)                          NOT NULL,
+    created      TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (event_id)
+);
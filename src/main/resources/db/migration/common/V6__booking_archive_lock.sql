@@ -0,0 +1,12 @@
+-- Row locked by every BookingArchiver batch, so archivers running on several instances take turns instead
+-- of copying the same bookings. The end date index serves the archive horizon read by listings.
+
+create table if not exists booking_archive_lock
+(
+    id INTEGER NOT NULL,
+    CONSTRAINT pk_booking_archive_lock PRIMARY KEY (id)
+);
+
+insert into booking_archive_lock (id) values (1);
+
+create index if not exists idx_bookings_archive_end on bookings_archive (end_date);
@@ -0,0 +1,9 @@
+-- Only approved and canceled bookings are archived now. Waiting and rejected bookings archived before go
+-- back to bookings, where their listings, the owner summary and approval look for them.
+
+insert into bookings (booking_id, item_id, booker_id, start_date, end_date, status)
+select booking_id, item_id, booker_id, start_date, end_date, status
+from bookings_archive
+where status in ('WAITING', 'REJECTED');
+
+delete from bookings_archive where status in ('WAITING', 'REJECTED');
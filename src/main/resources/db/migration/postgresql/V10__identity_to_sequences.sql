@@ -0,0 +1,29 @@
+-- Databases created by schema.sql before migrations were introduced generate ids with IDENTITY columns, while
+-- the entities use pooled sequences (allocationSize = 50). Moves every table still on IDENTITY to its sequence,
+-- starting past the ids already taken. Tables already on sequences are left alone, so their sequences never
+-- move back below a block another instance has allocated.
+
+do $$
+declare
+    t record;
+begin
+    for t in select *
+             from (values ('shareit_users', 'user_id', 'shareit_users_seq'),
+                          ('item_requests', 'request_id', 'item_requests_seq'),
+                          ('items', 'item_id', 'items_seq'),
+                          ('bookings', 'booking_id', 'bookings_seq'),
+                          ('comments', 'comment_id', 'comments_seq')) as s (table_name, column_name, sequence_name)
+    loop
+        if exists (select 1
+                   from information_schema.columns c
+                   where c.table_schema = current_schema()
+                     and c.table_name = t.table_name
+                     and c.column_name = t.column_name
+                     and c.is_identity = 'YES') then
+            execute format('select setval(%L, coalesce(max(%I), 0) + 50, false) from %I',
+                           t.sequence_name, t.column_name, t.table_name);
+            execute format('alter table %I alter column %I drop identity', t.table_name, t.column_name);
+        end if;
+    end loop;
+end
+$$;
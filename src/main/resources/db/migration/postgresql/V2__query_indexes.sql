@@ -0,0 +1,8 @@
+-- CREATE INDEX CONCURRENTLY builds the indexes without blocking writes to bookings, items and item_requests.
+-- Flyway detects it and runs this migration outside a transaction, so keep other statements out of it.
+
+create index concurrently if not exists idx_bookings_booker_status_start on bookings (booker_id, status, start_date desc, booking_id desc);
+create index concurrently if not exists idx_bookings_item_end on bookings (item_id, end_date);
+create index concurrently if not exists idx_items_owner on items (owner_id, item_id);
+create index concurrently if not exists idx_items_request on items (request_id);
+create index concurrently if not exists idx_item_requests_requester_created on item_requests (requester_id, created desc);
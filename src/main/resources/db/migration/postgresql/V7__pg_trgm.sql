@@ -0,0 +1,4 @@
+-- Trigram operator classes for the item search indexes of V8. H2 has no equivalent, so both versions exist
+-- only for PostgreSQL.
+
+create extension if not exists pg_trgm;
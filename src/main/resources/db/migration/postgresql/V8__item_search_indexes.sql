@@ -0,0 +1,5 @@
+-- Trigram indexes let the item search match lower(name) and lower(description) against '%text%' without
+-- scanning the table. CREATE INDEX CONCURRENTLY runs outside a transaction, so keep other statements out of it.
+
+create index concurrently if not exists idx_items_name_trgm on items using gin (lower(name) gin_trgm_ops);
+create index concurrently if not exists idx_items_description_trgm on items using gin (lower(description) gin_trgm_ops);
@@ -0,0 +1,72 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest
+public class QueryPlanTest {
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    public void beforeEach() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            rows.add(new Object[]{id, "user" + id + "@mail.com", "user " + id});
+        }
+        jdbc.batchUpdate("insert into shareit_users (user_id, email, name) values (?, ?, ?)", rows);
+        rows.clear();
+        for (long id = 1; id <= 500; id++) {
+            rows.add(new Object[]{id, 1 + id % 100});
+        }
+        jdbc.batchUpdate("insert into items (item_id, name, description, available, owner_id) " +
+                "values (?, 'item', 'description', true, ?)", rows);
+        rows.clear();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (long id = 1; id <= 5000; id++) {
+            rows.add(new Object[]{id, 1 + id % 500, 101 + id % 100, now, now});
+        }
+        jdbc.batchUpdate("insert into bookings (booking_id, item_id, booker_id, start_date, end_date, status) " +
+                "values (?, ?, ?, ?, ?, 'APPROVED')", rows);
+    }
+
+    @Test
+    public void repositoryQueries_UseIndexes() {
+        for (Map.Entry<String, String> query : QueryPlans.QUERIES.entrySet()) {
+            String plan = QueryPlans.explain(jdbc, query.getValue());
+            assertFalse(QueryPlans.scansTable(plan), query.getKey() + " scans a table: " + plan);
+        }
+    }
+
+    @Test
+    public void schema_DeclaresQueryIndexes() {
+        List<String> indexes = jdbc.queryForList("select index_name from information_schema.indexes " +
+                "where index_name like 'IDX_%' order by index_name", String.class);
+
+        assertEquals(List.of(
+                "IDX_BOOKINGS_ARCHIVE_BOOKER_START",
+                "IDX_BOOKINGS_ARCHIVE_END",
+                "IDX_BOOKINGS_ARCHIVE_ITEM_START",
+                "IDX_BOOKINGS_BOOKER_START",
+                "IDX_BOOKINGS_BOOKER_STATUS_START",
+                "IDX_BOOKINGS_ITEM_END",
+                "IDX_BOOKINGS_ITEM_START",
+                "IDX_COMMENTS_ITEM_CREATED",
+                "IDX_ITEMS_OWNER",
+                "IDX_ITEMS_REQUEST",
+                "IDX_ITEM_BOOKING_STATS_OWNER",
+                "IDX_ITEM_REQUESTS_REQUESTER_CREATED"), indexes);
+    }
+}
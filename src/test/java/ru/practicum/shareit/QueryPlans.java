@@ -0,0 +1,51 @@
+package ru.practicum.shareit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL shapes of the repository queries that have a dedicated index, with literal ids, used to check
+ * their plans with EXPLAIN. H2 reports a full scan as {@code tableScan} in the plan comment.
+ */
+public final class QueryPlans {
+    public static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("bookings of booker", "select * from bookings b where b.booker_id = 101 " +
+                "order by b.start_date desc, b.booking_id desc limit 10");
+        QUERIES.put("bookings of booker by status", "select * from bookings b where b.booker_id = 101 " +
+                "and b.status = 'WAITING' order by b.start_date desc, b.booking_id desc limit 10");
+        QUERIES.put("bookings of owner", "select b.* from bookings b join items i on i.item_id = b.item_id " +
+                "where i.owner_id = 1 order by b.start_date desc, b.booking_id desc limit 10");
+        QUERIES.put("availability timeline", "select * from bookings b where b.item_id = 1 " +
+                "and b.status <> 'REJECTED' and b.end_date > localtimestamp");
+        QUERIES.put("last bookings of items", "select * from bookings b where b.item_id in (1, 2) " +
+                "and b.status <> 'REJECTED' and b.start_date <= localtimestamp");
+        QUERIES.put("last archived bookings of items", "select * from bookings_archive b where b.item_id in (1, 2) " +
+                "and b.status <> 'REJECTED'");
+        QUERIES.put("archive horizon", "select max(b.end_date) from bookings_archive b");
+        QUERIES.put("past bookings of booker for item", "select * from bookings b where b.item_id = 1 " +
+                "and b.booker_id = 101 and b.status <> 'REJECTED' and b.start_date < localtimestamp");
+        QUERIES.put("items of owner", "select * from items i where i.owner_id = 1 order by i.item_id limit 20");
+        QUERIES.put("items of requests", "select * from items i where i.request_id in (1, 2)");
+        QUERIES.put("requests of requester", "select * from item_requests r where r.requester_id = 101 " +
+                "order by r.created desc limit 10");
+        QUERIES.put("comments of item", "select * from comments c where c.item_id = 1 " +
+                "order by c.created desc, c.comment_id desc limit 10");
+        QUERIES.put("booking stats of owner", "select * from item_booking_stats s where s.owner_id = 1 " +
+                "order by s.item_id");
+    }
+
+    private QueryPlans() {
+    }
+
+    public static String explain(JdbcTemplate jdbc, String sql) {
+        return jdbc.queryForObject("explain " + sql, String.class);
+    }
+
+    public static boolean scansTable(String plan) {
+        return plan.contains("tableScan");
+    }
+}
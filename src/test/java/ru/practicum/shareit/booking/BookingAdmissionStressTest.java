@@ -0,0 +1,231 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.exceptions.BookingBatchException;
+import ru.practicum.shareit.booking.exceptions.ItemNotAvailableException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.practicum.shareit=WARN",
+        "logging.level.org.springframework.transaction.interceptor=INFO",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO"
+})
+class BookingAdmissionStressTest {
+    private static final int REQUESTS = 2000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemBookingStatsRepository statsRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    private User owner;
+    private User booker;
+    private List<Item> items;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().name("owner").email("stress.owner@mail.com").build());
+        booker = userRepository.save(User.builder().name("booker").email("stress.booker@mail.com").build());
+        items = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name("item " + i)
+                    .description("hot item")
+                    .isAvailable(true)
+                    .ownerId(owner.getId())
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll(items);
+        userRepository.deleteAll(List.of(owner, booker));
+    }
+
+    @Test
+    void concurrentOverlappingBookings_NoOverlapsStored() throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        Random random = new Random(42);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Long itemId = items.get(i % items.size()).getId();
+            LocalDateTime start = base.plusHours(random.nextInt(500));
+            BookingRequestDto request = BookingRequestDto.builder()
+                    .itemId(itemId)
+                    .start(start)
+                    .end(start.plusHours(1 + random.nextInt(12)))
+                    .build();
+            tasks.add(() -> {
+                try {
+                    bookingService.createBooking(request, booker.getId());
+                    accepted.incrementAndGet();
+                } catch (ItemNotAvailableException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        assertEquals(REQUESTS, accepted.get() + rejected.get());
+        assertTrue(rejected.get() > 0);
+        for (Item item : items) {
+            List<Booking> stored = bookingRepository.findAll().stream()
+                    .filter(b -> b.getItem().getId().equals(item.getId()) && b.getStatus() != Status.REJECTED)
+                    .sorted(Comparator.comparing(Booking::getStartDate))
+                    .collect(Collectors.toList());
+            assertFalse(stored.isEmpty());
+            for (int i = 1; i < stored.size(); i++) {
+                assertFalse(stored.get(i).getStartDate().before(stored.get(i - 1).getEndDate()),
+                        String.format("Bookings %s and %s overlap", stored.get(i - 1), stored.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void bookingStoredByOtherInstance_IsRejected() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long itemId = items.get(0).getId();
+        bookingService.createBooking(BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusHours(1))
+                .build(), booker.getId());
+        bookingRepository.save(Booking.builder()
+                .item(items.get(0))
+                .booker(booker)
+                .startDate(Timestamp.valueOf(start.plusHours(2)))
+                .endDate(Timestamp.valueOf(start.plusHours(3)))
+                .status(Status.WAITING)
+                .build());
+        BookingRequestDto overlapping = BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start.plusHours(2))
+                .end(start.plusHours(4))
+                .build();
+
+        assertThrows(ItemNotAvailableException.class, () ->
+                bookingService.createBooking(overlapping, booker.getId()));
+        assertThrows(BookingBatchException.class, () ->
+                bookingService.createBookings(List.of(overlapping), booker.getId(), BookingBatchMode.ATOMIC));
+        assertEquals(2, bookingRepository.findAll().size());
+    }
+
+    @Test
+    void bookerDeletedByOtherInstance_IsNotFound() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        assertTrue(userLookupCache.exists(booker.getId()));
+        // Deleted behind the cache of this instance, as another instance would.
+        userRepository.deleteById(booker.getId());
+        BookingRequestDto request = BookingRequestDto.builder()
+                .itemId(items.get(0).getId())
+                .start(start)
+                .end(start.plusHours(1))
+                .build();
+
+        assertThrows(UserNotFoundException.class, () -> bookingService.createBooking(request, booker.getId()));
+
+        assertFalse(userLookupCache.exists(booker.getId()));
+        assertEquals(0, bookingRepository.count());
+    }
+
+    @Test
+    void concurrentApprovals_MoveStatsOnce() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long itemId = items.get(0).getId();
+        Long bookingId = bookingService.createBooking(BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusHours(1))
+                .build(), booker.getId()).getId();
+        AtomicInteger approved = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                try {
+                    bookingService.approveBooking(owner.getId(), true, bookingId);
+                    approved.incrementAndGet();
+                } catch (ItemNotAvailableException e) {
+                    // Already approved by another thread.
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        assertEquals(1, approved.get());
+        ItemBookingStats stats = statsRepository.findById(itemId).orElseThrow();
+        assertEquals(1, stats.getTotal());
+        assertEquals(0, stats.getWaiting());
+        assertEquals(1, stats.getApproved());
+        assertEquals(0, stats.getRejected());
+    }
+}
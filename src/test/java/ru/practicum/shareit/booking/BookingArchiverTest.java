@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(BookingArchiver.class)
+@TestPropertySource(properties = "shareit.booking.archive.batch-size=2")
+class BookingArchiverTest {
+    @Autowired
+    private BookingArchiver archiver;
+    @Autowired
+    private BookingArchiveRepository archiveRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private Timestamp cutoff;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        cutoff = Timestamp.valueOf(now.minusDays(180));
+        owner = userRepository.save(User.builder().name("owner").email("owner@mail.com").build());
+        booker = userRepository.save(User.builder().name("booker").email("booker@mail.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("drill")
+                .description("cordless")
+                .isAvailable(true)
+                .ownerId(owner.getId())
+                .build());
+    }
+
+    @Test
+    void archive_MovesBookingsEndedBeforeCutoffInBatches() {
+        List<Booking> old = List.of(book(now.minusDays(400)), book(now.minusDays(300)), book(now.minusDays(200)));
+        Booking recent = book(now.minusDays(10));
+
+        assertEquals(3, archiver.archive(cutoff));
+
+        for (Booking booking : old) {
+            assertTrue(bookingRepository.findById(booking.getId()).isEmpty());
+            assertEquals(booking.getStartDate(),
+                    archiveRepository.findArchivedById(booking.getId()).orElseThrow().getStartDate());
+        }
+        assertTrue(bookingRepository.findById(recent.getId()).isPresent());
+        assertEquals(old.get(2).getEndDate(), archiver.archivedUntil());
+        assertEquals(0, archiver.archive(cutoff));
+    }
+
+    @Test
+    void archive_KeepsWaitingAndRejectedBookings() {
+        Booking approved = book(now.minusDays(400));
+        Booking canceled = book(now.minusDays(400), Status.CANCELED);
+        Booking waiting = book(now.minusDays(400), Status.WAITING);
+        Booking rejected = book(now.minusDays(400), Status.REJECTED);
+
+        assertEquals(2, archiver.archive(cutoff));
+
+        assertTrue(archiveRepository.findArchivedById(approved.getId()).isPresent());
+        assertTrue(archiveRepository.findArchivedById(canceled.getId()).isPresent());
+        assertEquals(Status.WAITING, bookingRepository.findById(waiting.getId()).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(rejected.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void reachesArchive_OnlyForShortPagesOrPagesPastHorizon() {
+        assertFalse(archiver.reachesArchive(List.of(), 10));
+
+        book(now.minusDays(300));
+        archiver.archive(cutoff);
+        Booking recent = book(now.minusDays(10));
+        Booking old = Booking.builder().startDate(Timestamp.valueOf(now.minusDays(299))).build();
+
+        assertFalse(archiver.reachesArchive(List.of(recent), 1));
+        assertTrue(archiver.reachesArchive(List.of(recent), 2));
+        assertTrue(archiver.reachesArchive(List.of(recent, old), 2));
+    }
+
+    @Test
+    void findPastWithArchive_MergesHotAndArchivedBookings() {
+        Booking oldest = book(now.minusDays(400));
+        Booking old = book(now.minusDays(200));
+        Booking recent = book(now.minusDays(10));
+        book(now.plusDays(10));
+        archiver.archive(cutoff);
+        Timestamp at = Timestamp.valueOf(now);
+
+        assertEquals(List.of(recent.getId(), old.getId(), oldest.getId()),
+                ids(archiveRepository.findPastByBookerIdWithArchive(booker.getId(), at, 10, 0)));
+        assertEquals(List.of(old.getId()),
+                ids(archiveRepository.findPastByItemOwnerIdWithArchive(owner.getId(), at, 1, 1)));
+        assertEquals(List.of(old.getId(), oldest.getId()),
+                ids(archiveRepository.findPastByBookerIdBeforeCursorWithArchive(booker.getId(), at,
+                        recent.getStartDate(), recent.getId(), 10)));
+        assertEquals(4, archiveRepository.findByItemOwnerIdWithArchive(owner.getId(), 10, 0).size());
+        assertEquals(2, archiveRepository.countArchivedByItemOwnerId(owner.getId()));
+        assertEquals(2, archiveRepository.countArchivedByItemIdAndBookerId(item.getId(), booker.getId()));
+        assertEquals(List.of(old.getId()), ids(archiveRepository.findLastArchivedBookings(List.of(item.getId()))));
+    }
+
+    private Booking book(LocalDateTime start) {
+        return book(start, Status.APPROVED);
+    }
+
+    private Booking book(LocalDateTime start, Status status) {
+        return bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .startDate(Timestamp.valueOf(start))
+                .endDate(Timestamp.valueOf(start.plusDays(1)))
+                .status(status)
+                .build());
+    }
+
+    private static List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.item.model.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingAvailabilityIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingAvailabilityIndex index;
+    private Item item;
+    private LocalDateTime base;
+    private List<Booking> bookings;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new BookingAvailabilityIndex(bookingRepository);
+        item = Item.builder()
+                .id(1L)
+                .build();
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookings = new ArrayList<>();
+        bookings.add(booking(1L, base, base.plusHours(10)));
+        bookings.add(booking(2L, base.plusHours(2), base.plusHours(3)));
+        bookings.add(booking(3L, base.plusHours(20), base.plusHours(21)));
+        lenient().when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
+    }
+
+    @Test
+    public void busySlots_NestedAndOverlappingPeriods() {
+        assertFalse(isAvailable(base.plusHours(5), base.plusHours(6)));
+        assertFalse(isAvailable(base.minusHours(1), base.plusMinutes(1)));
+        assertFalse(isAvailable(base.plusHours(9), base.plusHours(11)));
+        assertTrue(isAvailable(base.plusHours(10), base.plusHours(20)));
+        assertTrue(isAvailable(base.minusHours(2), base));
+        assertTrue(isAvailable(base.plusHours(21), base.plusHours(22)));
+
+        verify(bookingRepository, times(1)).findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()),
+                eq(Status.REJECTED), any(Timestamp.class));
+    }
+
+    @Test
+    public void addAndRemove_UpdateLoadedTimeline() {
+        assertTrue(isAvailable(base.plusHours(12), base.plusHours(13)));
+
+        Booking added = booking(4L, base.plusHours(12), base.plusHours(14));
+        index.addAfterCommit(added);
+        assertFalse(isAvailable(base.plusHours(12), base.plusHours(13)));
+
+        index.removeAfterCommit(added);
+        assertTrue(isAvailable(base.plusHours(12), base.plusHours(13)));
+
+        index.removeAfterCommit(bookings.get(0));
+        assertTrue(isAvailable(base.plusHours(5), base.plusHours(6)));
+        assertFalse(isAvailable(base.plusHours(2), base.plusHours(6)));
+    }
+
+    @Test
+    public void evict_ReloadsTimeline() {
+        isAvailable(base, base.plusHours(1));
+        index.evict(item.getId());
+        isAvailable(base, base.plusHours(1));
+
+        verify(bookingRepository, times(2)).findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()),
+                eq(Status.REJECTED), any(Timestamp.class));
+    }
+
+    @Test
+    public void busySlots_MarksBookedAndPastSlots() {
+        LocalDateTime day = base.truncatedTo(ChronoUnit.HOURS);
+        List<Timestamp> boundaries = new ArrayList<>();
+        boundaries.add(Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+        for (int hour = 0; hour <= 24; hour++) {
+            boundaries.add(Timestamp.valueOf(day.plusHours(hour)));
+        }
+
+        BitSet busy = index.busySlots(item.getId(), boundaries);
+
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(1, base.equals(day) ? 11 : 12);
+        expected.set(21, base.equals(day) ? 22 : 23);
+        assertEquals(expected, busy);
+    }
+
+    @Test
+    public void freeStarts_OneWindowPerGapLongEnough() {
+        List<Timestamp> starts = index.freeStarts(item.getId(), Timestamp.valueOf(base.plusHours(1)),
+                Timestamp.valueOf(base.plusHours(3)), 3);
+
+        assertEquals(List.of(Timestamp.valueOf(base.plusHours(10)), Timestamp.valueOf(base.plusHours(21))), starts);
+        assertEquals(1, index.freeStarts(item.getId(), Timestamp.valueOf(base.plusHours(1)),
+                Timestamp.valueOf(base.plusHours(3)), 1).size());
+
+        List<Timestamp> longWindows = index.freeStarts(item.getId(), Timestamp.valueOf(base),
+                Timestamp.valueOf(base.plusHours(11)), 3);
+        assertEquals(List.of(Timestamp.valueOf(base.plusHours(21))), longWindows);
+    }
+
+    @Test
+    public void reload_ReplacesStaleTimelinesInOneQuery() {
+        Item other = Item.builder().id(2L).build();
+        assertTrue(isAvailable(base.plusHours(12), base.plusHours(13)));
+        List<Booking> fresh = new ArrayList<>(bookings);
+        fresh.add(booking(4L, base.plusHours(12), base.plusHours(13)));
+        when(bookingRepository.findByItemIdInAndStatusNotAndEndDateAfter(eq(Set.of(item.getId(), other.getId())),
+                eq(Status.REJECTED), any(Timestamp.class))).thenReturn(fresh);
+
+        index.reload(List.of(item.getId(), other.getId()));
+
+        assertFalse(isAvailable(base.plusHours(12), base.plusHours(13)));
+        assertTrue(index.busySlots(other.getId(), List.of(Timestamp.valueOf(base),
+                Timestamp.valueOf(base.plusHours(1)))).isEmpty());
+        verify(bookingRepository, times(1)).findByItemIdInAndStatusNotAndEndDateAfter(any(),
+                eq(Status.REJECTED), any(Timestamp.class));
+        verify(bookingRepository, times(1)).findByItemIdAndStatusNotAndEndDateAfter(any(), any(), any());
+    }
+
+    private boolean isAvailable(LocalDateTime start, LocalDateTime end) {
+        return !index.busySlots(item.getId(), List.of(Timestamp.valueOf(start), Timestamp.valueOf(end))).get(0);
+    }
+
+    private Booking booking(Long id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .startDate(Timestamp.valueOf(start))
+                .endDate(Timestamp.valueOf(end))
+                .status(Status.WAITING)
+                .build();
+    }
+}
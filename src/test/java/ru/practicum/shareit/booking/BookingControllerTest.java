@@ -8,11 +8,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSliceDto;
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
+import ru.practicum.shareit.booking.exceptions.BookingBatchException;
+import ru.practicum.shareit.booking.exceptions.BookingBatchResponse;
+import ru.practicum.shareit.booking.exceptions.BookingConflictException;
+import ru.practicum.shareit.booking.exceptions.BookingConflictResponse;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exceptions.handler.ErrorHandler;
@@ -25,9 +38,14 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -152,6 +170,28 @@ public class BookingControllerTest {
         assertEquals(objectMapper.writeValueAsString(bookings), result);
     }
 
+    @SneakyThrows
+    @Test
+    public void getOwnerBooking_CursorSetsNextCursorHeader() {
+        when(bookingService.getOwnerBookingAfter(userId, "ALL", "", size)).thenReturn(BookingSliceDto.builder()
+                .bookings(bookings)
+                .nextCursor("next")
+                .build());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/bookings/owner")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("state", "ALL")
+                        .param("cursor", "")
+                        .param("size", size.toString())
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertEquals(objectMapper.writeValueAsString(bookings), response.getContentAsString());
+        assertEquals("next", response.getHeader(BookingController.NEXT_CURSOR_HEADER));
+    }
+
     @SneakyThrows
     @Test
     public void updateBooking_Normal() {
@@ -171,4 +211,146 @@ public class BookingControllerTest {
         assertEquals(objectMapper.writeValueAsString(updatedBooking), result);
     }
 
+    @SneakyThrows
+    @Test
+    public void getFreeWindows_Normal() {
+        List<FreeWindowDto> windows = List.of(FreeWindowDto.builder().start(start).end(end).build());
+        when(bookingService.findFreeWindows(itemId, start, end, 3)).thenReturn(windows);
+
+        String result = mockMvc.perform(get("/bookings/free-windows")
+                        .param("itemId", itemId.toString())
+                        .param("start", start.toString())
+                        .param("end", end.toString()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(windows), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void createBooking_ConflictSuggestsFreeWindows() {
+        List<FreeWindowDto> windows = List.of(FreeWindowDto.builder().start(end).end(end.plusHours(1)).build());
+        when(bookingService.createBooking(any(BookingRequestDto.class), anyLong()))
+                .thenThrow(new BookingConflictException("Item is already booked for this period.", windows));
+
+        String result = mockMvc.perform(post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingToSave))
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isBadRequest())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(
+                new BookingConflictResponse("Item is already booked for this period.", windows)), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void createBookings_BestEffort() {
+        List<BookingBatchResultDto> results = List.of(
+                BookingBatchResultDto.builder().index(0).booking(savedBookingRequestDto).build(),
+                BookingBatchResultDto.builder().index(1).error("Item is already booked for this period.").build());
+        when(bookingService.createBookings(anyList(), eq(userId), eq(BookingBatchMode.BEST_EFFORT)))
+                .thenReturn(results);
+
+        String result = mockMvc.perform(post("/bookings/batch")
+                        .param("mode", "best_effort")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookingToSave, bookingToSave)))
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void createBookings_AtomicFailureReturnsFailures() {
+        List<BookingBatchResultDto> failures = List.of(BookingBatchResultDto.builder()
+                .index(0)
+                .error("Item id 1 not found")
+                .build());
+        when(bookingService.createBookings(anyList(), eq(userId), eq(BookingBatchMode.ATOMIC)))
+                .thenThrow(new BookingBatchException("Batch rejected, 1 of 1 bookings failed.", failures));
+
+        String result = mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookingToSave)))
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isBadRequest())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(
+                new BookingBatchResponse("Batch rejected, 1 of 1 bookings failed.", failures)), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void createBookings_EmptyBatch() {
+        mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).createBookings(anyList(), anyLong(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    public void decideBookings_Normal() {
+        List<BookingDecisionDto> decisions = List.of(
+                BookingDecisionDto.builder().bookingId(1L).approved(true).build(),
+                BookingDecisionDto.builder().bookingId(2L).approved(false).build());
+        List<BookingDecisionResultDto> results = List.of(
+                BookingDecisionResultDto.builder().bookingId(1L).status(Status.APPROVED).build(),
+                BookingDecisionResultDto.builder().bookingId(2L).error("Booking id 2 not found.").build());
+        when(bookingService.decideBookings(userId, decisions)).thenReturn(results);
+
+        String result = mockMvc.perform(patch("/bookings/owner/decisions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(decisions))
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void streamOwnerBookings_SendsEventsFromLastEventId() {
+        SseEmitter emitter = new SseEmitter();
+        when(bookingService.streamOwnerBookings(userId, 5L)).thenReturn(emitter);
+
+        MvcResult stream = mockMvc.perform(get("/bookings/owner/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("X-Sharer-User-Id", userId)
+                        .header("Last-Event-ID", 5))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().id("6").name("booking").data(savedBookingRequestDto, MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        String result = mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("id:6\nevent:booking\ndata:" + objectMapper.writeValueAsString(savedBookingRequestDto) + "\n\n",
+                result);
+    }
 }
@@ -0,0 +1,228 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingEventBus;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class BookingEventBusTest {
+    private BookingEventBus bus;
+    private BookingService bookingService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void beforeEach() {
+        bus = new BookingEventBus(4, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), Runnable::run);
+        bookingService = mock(BookingService.class);
+        when(bookingService.streamOwnerBookings(anyLong(), any()))
+                .thenAnswer(invocation -> bus.subscribe(invocation.getArgument(0), invocation.getArgument(1)));
+        mockMvc = MockMvcBuilders.standaloneSetup(new BookingController(bookingService)).build();
+    }
+
+    @SneakyThrows
+    @Test
+    public void publish_ReachesOnlyOwnerSubscribers() {
+        MockHttpServletResponse owner = subscribe(1L, null);
+        MockHttpServletResponse other = subscribe(2L, null);
+
+        bus.publish(1L, booking(10L));
+
+        assertEquals(2, bus.subscriberCount());
+        assertTrue(owner.getContentAsString().contains("id:1\nevent:booking\ndata:{\"id\":10"));
+        assertEquals("", other.getContentAsString());
+    }
+
+    @SneakyThrows
+    @Test
+    public void subscribe_ReplaysEventsAfterLastEventId() {
+        bus.publish(1L, booking(10L));
+        bus.publish(2L, booking(20L));
+        bus.publish(1L, booking(11L));
+
+        String stream = subscribe(1L, 1L).getContentAsString();
+
+        assertFalse(stream.contains("id:1\n"));
+        assertFalse(stream.contains("id:2\n"));
+        assertTrue(stream.startsWith("id:3\nevent:booking\ndata:{\"id\":11"));
+    }
+
+    @SneakyThrows
+    @Test
+    public void subscribe_SendsResetWhenMissedEventsAreNotKept() {
+        for (long id = 10; id < 15; id++) {
+            bus.publish(1L, booking(id));
+        }
+
+        assertEquals("id:5\nevent:reset\ndata:\n\n", subscribe(1L, 1L).getContentAsString());
+        assertEquals("id:5\nevent:reset\ndata:\n\n", subscribe(1L, 42L).getContentAsString());
+    }
+
+    @Test
+    public void slowSubscriber_IsDisconnected() {
+        List<Runnable> pending = new ArrayList<>();
+        bus = new BookingEventBus(2, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), pending::add);
+        bus.subscribe(1L, null);
+        bus.subscribe(2L, null);
+
+        bus.publish(1L, booking(10L));
+        bus.publish(1L, booking(11L));
+        assertEquals(2, bus.subscriberCount());
+
+        bus.publish(1L, booking(12L));
+        assertEquals(1, bus.subscriberCount());
+    }
+
+    @SneakyThrows
+    @Test
+    public void stalledSubscriber_IsEvictedAndFreesSender() {
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        bus = new BookingEventBus(4, 3, Duration.ofMinutes(1), Duration.ofMillis(50), sender);
+        CountDownLatch sending = new CountDownLatch(1);
+        mockMvc = MockMvcBuilders.standaloneSetup(new BookingController(bookingService))
+                .addFilter((request, response, chain) -> chain.doFilter(request,
+                        new StalledResponse((HttpServletResponse) response, sending)), "/bookings/owner/stream")
+                .build();
+        subscribe(1L, null);
+        bus.publish(1L, booking(10L));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        bus.evictStalled();
+        assertEquals(1, bus.subscriberCount());
+
+        Thread.sleep(100);
+        bus.evictStalled();
+        assertEquals(0, bus.subscriberCount());
+
+        AtomicBoolean senderInterrupted = new AtomicBoolean(true);
+        sender.submit(() -> senderInterrupted.set(Thread.currentThread().isInterrupted())).get(5, TimeUnit.SECONDS);
+        assertFalse(senderInterrupted.get());
+        sender.shutdownNow();
+    }
+
+    @SneakyThrows
+    @Test
+    public void stalledSubscriber_StreamIsCompletedOnceSendReturns() {
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        bus = new BookingEventBus(4, 3, Duration.ofMinutes(1), Duration.ofMillis(50), sender);
+        CountDownLatch sending = new CountDownLatch(1);
+        mockMvc = MockMvcBuilders.standaloneSetup(new BookingController(bookingService))
+                .addFilter((request, response, chain) -> chain.doFilter(request,
+                        new StalledResponse((HttpServletResponse) response, sending, true)), "/bookings/owner/stream")
+                .build();
+        MvcResult stream = mockMvc.perform(get("/bookings/owner/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        bus.publish(1L, booking(10L));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        bus.evictStalled();
+
+        assertEquals(0, bus.subscriberCount());
+        assertNull(stream.getAsyncResult(TimeUnit.SECONDS.toMillis(5)));
+        sender.shutdownNow();
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse subscribe(Long ownerId, Long lastEventId) {
+        MockHttpServletRequestBuilder streamRequest = get("/bookings/owner/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("X-Sharer-User-Id", ownerId);
+        if (lastEventId != null) {
+            streamRequest.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(streamRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static BookingResponseDto booking(Long id) {
+        return BookingResponseDto.builder()
+                .id(id)
+                .status(Status.WAITING)
+                .build();
+    }
+
+    private static final class StalledResponse extends HttpServletResponseWrapper {
+        private final CountDownLatch sending;
+        private final boolean resumesOnInterrupt;
+
+        private StalledResponse(HttpServletResponse response, CountDownLatch sending) {
+            this(response, sending, false);
+        }
+
+        private StalledResponse(HttpServletResponse response, CountDownLatch sending, boolean resumesOnInterrupt) {
+            super(response);
+            this.sending = sending;
+            this.resumesOnInterrupt = resumesOnInterrupt;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    if (sending.getCount() == 0 && resumesOnInterrupt) {
+                        return;
+                    }
+                    sending.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        if (!resumesOnInterrupt) {
+                            throw new InterruptedIOException("client stalled");
+                        }
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return false;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+    }
+}
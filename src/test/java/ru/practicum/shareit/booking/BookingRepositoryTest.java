@@ -6,12 +6,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
@@ -19,6 +23,8 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.springframework.data.domain.Sort.Direction.DESC;
 
@@ -31,6 +37,10 @@ class BookingRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private ItemBookingStatsRepository statsRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     private Item item;
 
@@ -166,6 +176,72 @@ class BookingRepositoryTest {
         Assertions.assertEquals(booking.getStatus(), result.getContent().get(0).getStatus());
     }
 
+    @Test
+    void testFindNotRejectedEndingAfter() {
+        var now = LocalDateTime.now();
+        var future = createBooking(Status.WAITING, item, booker, now.plusDays(1), now.plusDays(2));
+        createBooking(Status.REJECTED, item, booker, now.plusDays(1), now.plusDays(2));
+        createBooking(Status.APPROVED, item, booker, now.minusDays(2), now.minusDays(1));
+        var result = bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(item.getId(), Status.REJECTED,
+                Timestamp.valueOf(now));
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(future.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void testExistsOverlapping() {
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        createBooking(Status.WAITING, item, booker, now.plusDays(1), now.plusDays(2));
+        createBooking(Status.REJECTED, item, booker, now.plusDays(3), now.plusDays(4));
+        Assertions.assertTrue(bookingRepository.existsOverlapping(item.getId(),
+                Timestamp.valueOf(now.plusDays(1).plusHours(1)), Timestamp.valueOf(now.plusDays(5))));
+        Assertions.assertFalse(bookingRepository.existsOverlapping(item.getId(),
+                Timestamp.valueOf(now.plusDays(2)), Timestamp.valueOf(now.plusDays(5))));
+        Assertions.assertEquals(List.of(item.getId()), bookingRepository.findBookedItemIdsByBookerId(booker.getId()));
+    }
+
+    @Test
+    void testFindLastAndNextBookingsForItems() {
+        var otherItem = createItem("Pen", "Writing tool", true, booker);
+        var now = LocalDateTime.now();
+        createBooking(Status.APPROVED, item, booker, now.minusDays(5), now.minusDays(4));
+        var last = createBooking(Status.APPROVED, item, booker, now.minusDays(2), now.minusDays(1));
+        createBooking(Status.REJECTED, item, booker, now.minusHours(5), now.minusHours(4));
+        var next = createBooking(Status.WAITING, item, booker, now.plusDays(1), now.plusDays(2));
+        createBooking(Status.WAITING, item, booker, now.plusDays(3), now.plusDays(4));
+        var otherNext = createBooking(Status.WAITING, otherItem, booker, now.plusDays(3), now.plusDays(4));
+        var itemIds = List.of(item.getId(), otherItem.getId());
+
+        var lastBookings = bookingRepository.findLastBookings(itemIds, Timestamp.valueOf(now));
+        var nextBookings = bookingRepository.findNextBookings(itemIds, Timestamp.valueOf(now));
+
+        Assertions.assertEquals(1, lastBookings.size());
+        Assertions.assertEquals(last.getId(), lastBookings.get(0).getId());
+        Assertions.assertEquals(2, nextBookings.size());
+        Assertions.assertTrue(nextBookings.stream().anyMatch(b -> b.getId().equals(next.getId())));
+        Assertions.assertTrue(nextBookings.stream().anyMatch(b -> b.getId().equals(otherNext.getId())));
+    }
+
+    @Test
+    void testFindByBookerIdBeforeCursor() {
+        var start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        var first = createBooking(Status.WAITING, item, booker, start, start.plusHours(1));
+        var second = createBooking(Status.WAITING, item, booker, start, start.plusHours(1));
+        var third = createBooking(Status.WAITING, item, booker, start.minusDays(1), start);
+        var cursor = BookingCursor.FIRST;
+
+        var page = bookingRepository.findByBookerIdBeforeCursor(booker.getId(), cursor.getStartDate(),
+                cursor.getBookingId(), PageRequest.of(0, 2));
+        Assertions.assertEquals(List.of(second.getId(), first.getId()),
+                List.of(page.get(0).getId(), page.get(1).getId()));
+
+        cursor = BookingCursor.of(page.get(1));
+        page = bookingRepository.findByBookerIdBeforeCursor(booker.getId(), cursor.getStartDate(),
+                cursor.getBookingId(), PageRequest.of(0, 2));
+        Assertions.assertEquals(1, page.size());
+        Assertions.assertEquals(third.getId(), page.get(0).getId());
+    }
+
 /*    @Test
     void testIsAvailableForBooking() {
         var start = LocalDateTime.now().plusDays(-2);
@@ -181,4 +257,59 @@ class BookingRepositoryTest {
         itemRepository.deleteAll();
         userRepository.deleteAll();
     }
+
+    @Test
+    void testUpdateStatusByIdIn() {
+        var first = createBooking(Status.WAITING, item, booker, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        var second = createBooking(Status.WAITING, item, booker, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        var untouched = createBooking(Status.WAITING, item, booker, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+
+        Assertions.assertEquals(2, bookingRepository.updateStatusByIdIn(Status.APPROVED,
+                List.of(first.getId(), second.getId())));
+
+        var result = bookingRepository.findAllWithItemByIdForUpdate(List.of(first.getId(), second.getId(), untouched.getId()));
+        Assertions.assertEquals(3, result.size());
+        for (Booking booking : result) {
+            Assertions.assertEquals(item.getOwnerId(), booking.getItem().getOwnerId());
+            Assertions.assertEquals(booking.getId().equals(untouched.getId()) ? Status.WAITING : Status.APPROVED,
+                    booking.getStatus());
+        }
+    }
+
+    @Test
+    void testCountByItemOwnerIdAndTime() {
+        var now = LocalDateTime.now();
+        createBooking(Status.WAITING, item, booker, now.minusHours(1), now.plusHours(1));
+        createBooking(Status.APPROVED, item, booker, now.minusHours(3), now.minusHours(2));
+        createBooking(Status.APPROVED, item, booker, now.plusHours(2), now.plusHours(3));
+        createBooking(Status.APPROVED, item, booker, now.plusHours(4), now.plusHours(5));
+
+        var counts = bookingRepository.countByItemOwnerIdAndTime(item.getOwnerId(), Timestamp.valueOf(now));
+
+        Assertions.assertEquals(1L, counts.getCurrentCount());
+        Assertions.assertEquals(1L, counts.getPastCount());
+        Assertions.assertEquals(2L, counts.getFutureCount());
+    }
+
+    @Test
+    void testStatsCountersAndBookerRemoval() {
+        statsRepository.save(ItemBookingStats.builder().itemId(item.getId()).ownerId(item.getOwnerId()).build());
+        createBooking(Status.WAITING, item, booker, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        createBooking(Status.REJECTED, item, booker, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        var other = createUser("Other", "other@mail.com");
+        createBooking(Status.APPROVED, item, other, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        Assertions.assertEquals(1, statsRepository.addCounts(item.getId(), 3, 1, 1, 1));
+        Assertions.assertEquals(0, statsRepository.addCounts(-1L, 1, 1, 0, 0));
+
+        Assertions.assertEquals(1, statsRepository.subtractBookingsOf(booker.getId()));
+        entityManager.clear();
+
+        var stats = statsRepository.findAllByOwnerIdOrderByItemId(item.getOwnerId());
+        Assertions.assertEquals(List.of(ItemBookingStats.builder()
+                .itemId(item.getId())
+                .ownerId(item.getOwnerId())
+                .total(1)
+                .approved(1)
+                .build()), stats);
+    }
 }
@@ -3,39 +3,71 @@ package ru.practicum.shareit.booking;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSliceDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.ItemBookingStatsDto;
+import ru.practicum.shareit.booking.dto.FreeWindowDto;
+import ru.practicum.shareit.booking.exceptions.BookingBatchException;
+import ru.practicum.shareit.booking.exceptions.BookingConflictException;
 import ru.practicum.shareit.booking.exceptions.BookingNotAloudException;
 import ru.practicum.shareit.booking.exceptions.BookingNotFoundException;
 import ru.practicum.shareit.booking.exceptions.ItemNotAvailableException;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingStats;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingTimeCounts;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
+import ru.practicum.shareit.booking.service.BookingAdmissionLocks;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.service.BookingEventBus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.ItemBookingStatsRecorder;
 import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.exceptions.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxPublisher;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,7 +78,16 @@ public class BookingServiceTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
-    @InjectMocks
+    @Mock
+    private ItemBookingStatsRepository statsRepository;
+    @Mock
+    private BookingArchiveRepository archiveRepository;
+    @Mock
+    private BookingArchiver archiver;
+    @Mock
+    private OutboxPublisher outbox;
+    @Mock
+    private BookingEventBus eventBus;
     private BookingService bookingService;
 
     private User owner;
@@ -59,6 +100,11 @@ public class BookingServiceTest {
 
     @BeforeEach
     public void beforeEach() {
+        bookingService = new BookingService(bookingRepository,
+                new UserLookupCache(userRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(5), 100), itemRepository,
+                new BookingAvailabilityIndex(bookingRepository), new BookingAdmissionLocks(16), statsRepository,
+                new ItemBookingStatsRecorder(statsRepository), archiveRepository, archiver, outbox, eventBus);
+
         owner = User.builder()
                 .id(1L)
                 .build();
@@ -87,8 +133,8 @@ public class BookingServiceTest {
 
         bookingRequestDtoToSave = BookingRequestDto.builder()
                 .itemId(item.getId())
-                .start(LocalDateTime.now().plusHours(1))
-                .end(LocalDateTime.now().plusHours(2))
+                .start(LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS))
+                .end(LocalDateTime.now().plusHours(2).truncatedTo(ChronoUnit.SECONDS))
                 .build();
 
         savedBooking = Booking.builder()
@@ -115,12 +161,15 @@ public class BookingServiceTest {
 
     @Test
     public void addBooking_Normal() {
-        when(bookingRepository.save(any(Booking.class))).thenReturn(savedBooking);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
 
         BookingResponseDto result = bookingService.createBooking(bookingRequestDtoToSave, booker.getId());
         assertEquals(savedBookingRequestDto, result);
+        verify(outbox, times(1)).append(OutboxEventType.BOOKING_CREATED, savedBooking.getId(),
+                BookingMapper.mapToEventDto(savedBooking, item));
+        verify(eventBus, times(1)).publishAfterCommit(owner.getId(), savedBookingRequestDto);
     }
 
     @Test
@@ -136,9 +185,9 @@ public class BookingServiceTest {
         Throwable e2 = assertThrows(ValidationException.class, () -> bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
         assertEquals("Booking start date should be before booking end date", e2.getMessage());
 
-        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).findByIdForUpdate(anyLong());
         verify(userRepository, never()).findById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -148,64 +197,100 @@ public class BookingServiceTest {
         Throwable e = assertThrows(ValidationException.class, () -> bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
         assertEquals("Booking start date should be before booking end date", e.getMessage());
 
-        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).findByIdForUpdate(anyLong());
         verify(userRepository, never()).findById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_NoSuchItem() {
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.empty());
 
         Throwable e = assertThrows(ItemNotFoundException.class, () ->
                 bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
         assertEquals(String.format("Item id %s not found", item.getId()), e.getMessage());
 
         verify(userRepository, never()).findById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_ItemMotAvailable() {
         item.setIsAvailable(false);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
 
         Throwable e = assertThrows(ItemNotAvailableException.class, () ->
                 bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
         assertEquals(String.format("Item id %s not available", item.getId()), e.getMessage());
 
         verify(userRepository, never()).findById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_BookingOwnItem() {
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
 
         Throwable e = assertThrows(BookingNotAloudException.class, () ->
                 bookingService.createBooking(bookingRequestDtoToSave, item.getOwnerId()));
         assertEquals("Booking own item is not aloud.", e.getMessage());
 
         verify(userRepository, never()).findById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
-    public void addBooking_noSuchBooker() {
+    public void findFreeWindows_Normal() {
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
+        LocalDateTime start = savedBooking.getStartDate().toLocalDateTime();
+
+        List<FreeWindowDto> windows = bookingService.findFreeWindows(item.getId(), start, start.plusMinutes(30), 5);
+
+        assertEquals(1, windows.size());
+        assertEquals(savedBooking.getEndDate().toLocalDateTime(), windows.get(0).getStart());
+        assertEquals(savedBooking.getEndDate().toLocalDateTime().plusMinutes(30), windows.get(0).getEnd());
+    }
+
+    @Test
+    public void findFreeWindows_UnavailableItem() {
+        item.setIsAvailable(false);
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertTrue(bookingService.findFreeWindows(item.getId(), start, start.plusHours(1), 3).isEmpty());
+        verify(bookingRepository, never()).findByItemIdAndStatusNotAndEndDateAfter(any(), any(), any());
+    }
+
+    @Test
+    public void findFreeWindows_NoSuchItem() {
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.empty());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ItemNotFoundException.class, () ->
+                bookingService.findFreeWindows(item.getId(), start, start.plusHours(1), 3));
+    }
+
+    @Test
+    public void addBooking_noSuchBooker() {
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
         when(userRepository.findById(booker.getId())).thenReturn(Optional.empty());
 
         Throwable e = assertThrows(UserNotFoundException.class, () ->
                 bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
         assertEquals(String.format("User id %s not found", booker.getId()), e.getMessage());
 
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_ItemBookingOverlap_startBeforeEndWithin() {
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findByItemId(item.getId())).thenReturn(bookings);
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(eq(item.getId()), any(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(true);
+        when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         BookingRequestDto otherBooking = BookingRequestDto.builder()
@@ -214,17 +299,25 @@ public class BookingServiceTest {
                 .end(savedBooking.getEndDate().toLocalDateTime().minusMinutes(1))
                 .build();
 
-        Throwable e = assertThrows(ItemNotAvailableException.class, () ->
+        BookingConflictException e = assertThrows(BookingConflictException.class, () ->
                 bookingService.createBooking(otherBooking, booker.getId()));
         assertEquals("Item is already booked for this period.", e.getMessage());
+        assertEquals(List.of(FreeWindowDto.builder()
+                        .start(savedBooking.getEndDate().toLocalDateTime())
+                        .end(savedBooking.getEndDate().toLocalDateTime().plusHours(1))
+                        .build()),
+                e.getFreeWindows());
 
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_ItemBookingOverlap_startWithinEndWithin() {
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findByItemId(item.getId())).thenReturn(bookings);
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(eq(item.getId()), any(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(true);
+        when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         BookingRequestDto otherBooking = BookingRequestDto.builder()
@@ -237,13 +330,16 @@ public class BookingServiceTest {
                 bookingService.createBooking(otherBooking, booker.getId()));
         assertEquals("Item is already booked for this period.", e.getMessage());
 
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     public void addBooking_ItemBookingOverlap_startWithinEndAfter() {
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findByItemId(item.getId())).thenReturn(bookings);
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(eq(item.getId()), any(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(true);
+        when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         BookingRequestDto otherBooking = BookingRequestDto.builder()
@@ -256,7 +352,48 @@ public class BookingServiceTest {
                 bookingService.createBooking(otherBooking, booker.getId()));
         assertEquals("Item is already booked for this period.", e.getMessage());
 
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    public void addBooking_StartsWhenOtherBookingEnds() {
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+
+        BookingRequestDto otherBooking = BookingRequestDto.builder()
+                .itemId(item.getId())
+                .start(savedBooking.getEndDate().toLocalDateTime())
+                .end(savedBooking.getEndDate().toLocalDateTime().plusHours(1))
+                .build();
+
+        bookingService.createBooking(otherBooking, booker.getId());
+
+        verify(bookingRepository, times(1)).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    public void addBooking_AfterOverlappingBookingRejected() {
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(eq(item.getId()), any(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(true, false);
+        when(bookingRepository.findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+
+        assertThrows(ItemNotAvailableException.class, () ->
+                bookingService.createBooking(bookingRequestDtoToSave, booker.getId()));
+
+        bookingService.approveBooking(owner.getId(), false, savedBooking.getId());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+
+        bookingService.createBooking(bookingRequestDtoToSave, booker.getId());
+
+        verify(bookingRepository, times(1)).saveAndFlush(any(Booking.class));
+        verify(bookingRepository, times(1)).findByItemIdAndStatusNotAndEndDateAfter(eq(item.getId()),
+                eq(Status.REJECTED), any(Timestamp.class));
     }
 
     @Test
@@ -280,6 +417,15 @@ public class BookingServiceTest {
         assertEquals(String.format("Booking id %s not found.", savedBooking.getId()), e.getMessage());
     }
 
+    @Test
+    public void findBooking_Archived() {
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.empty());
+        when(archiveRepository.findArchivedById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+
+        assertEquals(savedBookingRequestDto, bookingService.findBooking(savedBooking.getId(), booker.getId()));
+    }
+
     @Test
     public void findBooking_BookerNoAccessToBooking() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
@@ -291,6 +437,49 @@ public class BookingServiceTest {
         assertEquals(String.format("Booking id %s not found.", savedBooking.getId()), e.getMessage());
     }
 
+    @Test
+    public void getUserBookingsAfter_ReturnsNextCursor() {
+        Booking older = Booking.builder()
+                .id(2L)
+                .startDate(Timestamp.valueOf(savedBooking.getStartDate().toLocalDateTime().minusDays(1)))
+                .endDate(savedBooking.getStartDate())
+                .item(item)
+                .booker(booker)
+                .status(Status.WAITING)
+                .build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(bookingRepository.findByBookerIdBeforeCursor(eq(booker.getId()), any(Timestamp.class), anyLong(),
+                eq(PageRequest.of(0, 2)))).thenReturn(List.of(savedBooking, older));
+
+        BookingSliceDto result = bookingService.getUserBookingsAfter(booker.getId(), "ALL", "", 1);
+
+        assertEquals(List.of(savedBookingRequestDto), result.getBookings());
+        assertEquals(BookingCursor.of(savedBooking), BookingCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    public void getOwnerBookingAfter_LastPageHasNoCursor() {
+        BookingCursor cursor = BookingCursor.of(savedBooking);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(bookingRepository.findByItemOwnerIdAndStatusBeforeCursor(owner.getId(), Status.WAITING,
+                cursor.getStartDate(), cursor.getBookingId(), PageRequest.of(0, 11))).thenReturn(List.of());
+
+        BookingSliceDto result = bookingService.getOwnerBookingAfter(owner.getId(), "WAITING", cursor.encode(), 10);
+
+        assertEquals(0, result.getBookings().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void getUserBookingsAfter_InvalidCursor() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+
+        Throwable e = assertThrows(ValidationException.class, () ->
+                bookingService.getUserBookingsAfter(booker.getId(), "ALL", "not a cursor", 10));
+
+        assertEquals("Invalid cursor: not a cursor", e.getMessage());
+    }
+
     @Test
     public void getUserBookings_StateALL() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
@@ -551,6 +740,43 @@ public class BookingServiceTest {
                         any(Status.class), any(PageRequest.class)); //waiting, rejected
     }
 
+    @Test
+    public void getUserBookings_StatePASTReachesArchive() {
+        Booking archived = Booking.builder()
+                .id(2L)
+                .startDate(Timestamp.valueOf(savedBooking.getStartDate().toLocalDateTime().minusYears(1)))
+                .endDate(Timestamp.valueOf(savedBooking.getEndDate().toLocalDateTime().minusYears(1)))
+                .item(item)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(bookingRepository.findByBookerIdAndEndDateBeforeOrderByStartDateDesc(anyLong(), any(Timestamp.class),
+                any(PageRequest.class))).thenReturn(new PageImpl<>(bookings));
+        when(archiver.reachesArchive(bookings, 10)).thenReturn(true);
+        when(archiveRepository.findPastByBookerIdWithArchive(eq(booker.getId()), any(Timestamp.class), eq(10),
+                eq(10L))).thenReturn(List.of(savedBooking, archived));
+
+        List<BookingResponseDto> result = bookingService.getUserBookings(booker.getId(), "PAST", 10, 10);
+
+        assertEquals(2, result.size());
+        assertEquals(archived.getId(), result.get(1).getId());
+    }
+
+    @Test
+    public void getOwnerBookings_StatePastStopsBeforeArchive() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(bookingRepository.findByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(anyLong(),
+                any(Timestamp.class), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(bookings));
+        when(archiver.reachesArchive(bookings, 1)).thenReturn(false);
+
+        List<BookingResponseDto> result = bookingService.getOwnerBooking(owner.getId(), "PAST", 0, 1);
+
+        assertEquals(List.of(savedBookingRequestDto), result);
+        verifyNoInteractions(archiveRepository);
+    }
+
     @Test
     public void getOwnerBookings_StatePast() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
@@ -697,7 +923,7 @@ public class BookingServiceTest {
 
     @Test
     public void approveBooking_AcceptNormal() {
-        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
         savedBookingRequestDto.setStatus(Status.APPROVED);
 
@@ -708,19 +934,21 @@ public class BookingServiceTest {
 
     @Test
     public void approveBooking_RejectedNormal() {
-        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
         savedBookingRequestDto.setStatus(Status.REJECTED);
 
         BookingResponseDto result = bookingService.approveBooking(owner.getId(), false, savedBooking.getId());
 
         assertEquals(savedBookingRequestDto, result);
+        verify(outbox, times(1)).append(OutboxEventType.BOOKING_REJECTED, savedBooking.getId(),
+                BookingMapper.mapToEventDto(savedBooking, item));
     }
 
     @Test
     public void approveBooking_NoSuchBooking() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.empty());
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.empty());
 
         Throwable e = assertThrows(BookingNotFoundException.class, () ->
                 bookingService.approveBooking(owner.getId(), true, savedBooking.getId()));
@@ -731,7 +959,7 @@ public class BookingServiceTest {
     @Test
     public void approveBooking_NotByOwner() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
 
         Throwable e = assertThrows(BookingNotFoundException.class, () ->
                 bookingService.approveBooking(999L, true, savedBooking.getId()));
@@ -741,7 +969,7 @@ public class BookingServiceTest {
 
     @Test
     public void approveBooking_AlreadyApproved() {
-        when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
         savedBooking.setStatus(Status.APPROVED);
 
@@ -750,4 +978,184 @@ public class BookingServiceTest {
 
         assertEquals(String.format("Booking id %s already approved", savedBooking.getId()), e.getMessage());
     }
+
+    @Test
+    public void createBookings_AtomicRejectsOverlapWithinBatch() {
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllByIdForUpdate(Set.of(item.getId()))).thenReturn(List.of(item));
+        when(bookingRepository.findByItemIdInAndStatusNotAndEndDateAfter(any(), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
+        LocalDateTime start = bookingRequestDtoToSave.getEnd().plusHours(1);
+        List<BookingRequestDto> requests = List.of(
+                BookingRequestDto.builder().itemId(item.getId()).start(start.plusMinutes(30)).end(start.plusHours(2)).build(),
+                BookingRequestDto.builder().itemId(item.getId()).start(start).end(start.plusHours(1)).build());
+
+        BookingBatchException e = assertThrows(BookingBatchException.class, () ->
+                bookingService.createBookings(requests, booker.getId(), BookingBatchMode.ATOMIC));
+
+        assertEquals("Batch rejected, 1 of 2 bookings failed.", e.getMessage());
+        assertEquals(List.of(BookingBatchResultDto.builder()
+                .index(0)
+                .error("Booking overlaps another booking of the same item in the batch.")
+                .build()), e.getFailures());
+        verify(bookingRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void createBookings_BestEffortSavesValidEntries() {
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllByIdForUpdate(Set.of(item.getId(), 99L))).thenReturn(List.of(item));
+        when(bookingRepository.findByItemIdInAndStatusNotAndEndDateAfter(any(), eq(Status.REJECTED),
+                any(Timestamp.class))).thenReturn(bookings);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> saved = invocation.getArgument(0);
+            saved.forEach(b -> b.setId(10L));
+            return saved;
+        });
+        LocalDateTime start = bookingRequestDtoToSave.getEnd().plusHours(1);
+        List<BookingRequestDto> requests = List.of(
+                BookingRequestDto.builder().itemId(item.getId()).start(start).end(start.plusHours(1)).build(),
+                bookingRequestDtoToSave,
+                BookingRequestDto.builder().itemId(99L).start(start).end(start.plusHours(1)).build(),
+                BookingRequestDto.builder().itemId(item.getId()).start(start.minusDays(1)).end(start).build());
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(requests, booker.getId(),
+                BookingBatchMode.BEST_EFFORT);
+
+        assertEquals(4, results.size());
+        assertEquals(10L, results.get(0).getBooking().getId());
+        assertEquals(start, results.get(0).getBooking().getStart());
+        assertEquals("Item is already booked for this period.", results.get(1).getError());
+        assertEquals("Item id 99 not found", results.get(2).getError());
+        assertEquals("Booking cannot start or end in past", results.get(3).getError());
+        verify(bookingRepository, times(1)).saveAll(argThat(saved -> ((List<Booking>) saved).size() == 1));
+        verify(itemRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    public void decideBookings_AppliesValidDecisions() {
+        Booking rejected = Booking.builder()
+                .id(2L)
+                .startDate(savedBooking.getStartDate())
+                .endDate(savedBooking.getEndDate())
+                .item(item)
+                .booker(booker)
+                .status(Status.REJECTED)
+                .build();
+        Booking approved = Booking.builder()
+                .id(3L)
+                .startDate(savedBooking.getStartDate())
+                .endDate(savedBooking.getEndDate())
+                .item(item)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .build();
+        Item otherItem = Item.builder().id(2L).ownerId(99L).build();
+        Booking foreign = Booking.builder().id(4L).item(otherItem).booker(booker).status(Status.WAITING).build();
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(bookingRepository.findAllWithItemByIdForUpdate(Set.of(1L, 2L, 3L, 4L, 5L)))
+                .thenReturn(List.of(savedBooking, rejected, approved, foreign));
+
+        List<BookingDecisionResultDto> results = bookingService.decideBookings(owner.getId(), List.of(
+                BookingDecisionDto.builder().bookingId(1L).approved(true).build(),
+                BookingDecisionDto.builder().bookingId(2L).approved(false).build(),
+                BookingDecisionDto.builder().bookingId(3L).approved(false).build(),
+                BookingDecisionDto.builder().bookingId(4L).approved(true).build(),
+                BookingDecisionDto.builder().bookingId(5L).approved(true).build(),
+                BookingDecisionDto.builder().bookingId(1L).approved(false).build()));
+
+        assertEquals(List.of(
+                BookingDecisionResultDto.builder().bookingId(1L).status(Status.APPROVED).build(),
+                BookingDecisionResultDto.builder().bookingId(2L).status(Status.REJECTED).build(),
+                BookingDecisionResultDto.builder().bookingId(3L).error("Booking id 3 already approved").build(),
+                BookingDecisionResultDto.builder().bookingId(4L).error("Booking id 4 not found.").build(),
+                BookingDecisionResultDto.builder().bookingId(5L).error("Booking id 5 not found.").build(),
+                BookingDecisionResultDto.builder().bookingId(1L).error("Duplicate decision for booking id 1").build()),
+                results);
+        assertEquals(Status.APPROVED, savedBooking.getStatus());
+        verify(bookingRepository, times(1)).updateStatusByIdIn(Status.APPROVED, List.of(1L));
+        verify(bookingRepository, never()).updateStatusByIdIn(eq(Status.REJECTED), any());
+        verify(bookingRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void addBooking_CreatesItemStats() {
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(statsRepository.addCounts(item.getId(), 1, 1, 0, 0)).thenReturn(0);
+
+        bookingService.createBooking(bookingRequestDtoToSave, booker.getId());
+
+        verify(statsRepository, times(1)).save(ItemBookingStats.builder()
+                .itemId(item.getId())
+                .ownerId(owner.getId())
+                .total(1)
+                .waiting(1)
+                .build());
+    }
+
+    @Test
+    public void approveBooking_MovesStatsCounts() {
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+
+        bookingService.approveBooking(owner.getId(), false, savedBooking.getId());
+
+        verify(statsRepository, times(1)).addCounts(item.getId(), 0, -1, 0, 1);
+    }
+
+    @Test
+    public void approveBooking_RejectingRejectedChangesNothing() {
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+        savedBooking.setStatus(Status.REJECTED);
+
+        BookingResponseDto result = bookingService.approveBooking(owner.getId(), false, savedBooking.getId());
+
+        assertEquals(Status.REJECTED, result.getStatus());
+        verify(statsRepository, never()).addCounts(anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+        verify(outbox, never()).append(any(), any(), any());
+    }
+
+    @Test
+    public void getOwnerSummary_CombinesCountersAndTimeCounts() {
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(statsRepository.findAllByOwnerIdOrderByItemId(owner.getId())).thenReturn(List.of(
+                ItemBookingStats.builder().itemId(1L).ownerId(owner.getId()).total(5).waiting(2).approved(2)
+                        .rejected(1).build(),
+                ItemBookingStats.builder().itemId(2L).ownerId(owner.getId()).total(1).approved(1).build()));
+        BookingTimeCounts timeCounts = mock(BookingTimeCounts.class);
+        when(timeCounts.getCurrentCount()).thenReturn(1L);
+        when(timeCounts.getPastCount()).thenReturn(3L);
+        when(timeCounts.getFutureCount()).thenReturn(null);
+        when(bookingRepository.countByItemOwnerIdAndTime(eq(owner.getId()), any(Timestamp.class)))
+                .thenReturn(timeCounts);
+
+        BookingSummaryDto summary = bookingService.getOwnerSummary(owner.getId());
+
+        Map<String, Long> states = new LinkedHashMap<>();
+        states.put("ALL", 6L);
+        states.put("CURRENT", 1L);
+        states.put("PAST", 3L);
+        states.put("FUTURE", 0L);
+        states.put("WAITING", 2L);
+        states.put("REJECTED", 1L);
+        assertEquals(states, summary.getStates());
+        assertEquals(List.of(
+                ItemBookingStatsDto.builder().itemId(1L).total(5).waiting(2).approved(2).rejected(1).build(),
+                ItemBookingStatsDto.builder().itemId(2L).total(1).approved(1).build()), summary.getItems());
+    }
+
+    @Test
+    public void getOwnerSummary_NoBookingsSkipsTimeQuery() {
+        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(statsRepository.findAllByOwnerIdOrderByItemId(owner.getId())).thenReturn(List.of());
+
+        BookingSummaryDto summary = bookingService.getOwnerSummary(owner.getId());
+
+        assertEquals(0L, summary.getStates().get("ALL"));
+        assertEquals(0L, summary.getStates().get("FUTURE"));
+        verify(bookingRepository, never()).countByItemOwnerIdAndTime(anyLong(), any());
+    }
 }
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "shareit.hibernate.statistics=true")
+@Import(HibernateCacheEndpoint.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HibernateCacheEndpointTest {
+    @Autowired
+    private HibernateCacheEndpoint endpoint;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    public void beforeEach() {
+        owner = userRepository.save(User.builder().name("owner").email(UUID.randomUUID() + "@mail.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("drill")
+                .description("cordless")
+                .isAvailable(true)
+                .ownerId(owner.getId())
+                .build());
+        entityManagerFactory.getCache().evictAll();
+        statistics().clear();
+    }
+
+    @Test
+    public void findById_RepeatedLoadsServedFromCache() {
+        itemRepository.findById(item.getId());
+        userRepository.findById(owner.getId());
+        long statements = statistics().getPrepareStatementCount();
+
+        assertEquals("drill", itemRepository.findById(item.getId()).orElseThrow().getName());
+        assertEquals("owner", userRepository.findById(owner.getId()).orElseThrow().getName());
+
+        assertEquals(statements, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void regions_ReportsHitsAndMisses() {
+        itemRepository.findById(item.getId());
+        itemRepository.findById(item.getId());
+
+        CacheRegionStatisticsDto items = endpoint.regions().get("items");
+        assertEquals(1, items.getHitCount());
+        assertEquals(1, items.getMissCount());
+        assertEquals(0.5, items.getHitRatio());
+        assertTrue(endpoint.regions().containsKey("users"));
+        assertEquals(items, endpoint.region("items"));
+        assertNull(endpoint.region("unknown"));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicated",
+        "shareit.datasource.replicas[0].url=jdbc:h2:mem:replicated",
+        "shareit.datasource.replicas[0].username=test",
+        "shareit.datasource.replicas[0].password=test",
+        "shareit.datasource.lag-query=select 0"
+})
+class ReplicaDataSourceConfigTest {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void readOnlyServiceMethods_RunThroughRoutingDataSource() {
+        assertTrue(dataSource instanceof LazyConnectionDataSourceProxy);
+        assertSame(routingDataSource, ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource());
+
+        User user = userRepository.save(User.builder().name("user").email("replicated@mail.com").build());
+
+        assertTrue(requestService.findAllRequests(user.getId(), 0, 10).isEmpty());
+    }
+
+    @Test
+    void readOnlyTransactions_DoNotFillSecondLevelCache() {
+        User user = userRepository.save(User.builder().name("user").email("cached@mail.com").build());
+        entityManagerFactory.getCache().evictAll();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> userRepository.findById(user.getId()).orElseThrow());
+        assertFalse(entityManagerFactory.getCache().contains(User.class, user.getId()));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                userRepository.findById(user.getId()).orElseThrow());
+        assertTrue(entityManagerFactory.getCache().contains(User.class, user.getId()));
+    }
+}
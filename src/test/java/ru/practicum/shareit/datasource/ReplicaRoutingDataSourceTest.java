@@ -0,0 +1,121 @@
+package ru.practicum.shareit.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaRoutingDataSourceTest {
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void beforeEach() {
+        DataSource primaryDataSource = database();
+        DataSource replicaDataSource = database();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary.execute("create table origin (name varchar(20))");
+        primary.execute("insert into origin values ('primary')");
+        replica.execute("create table origin (name varchar(20))");
+        replica.execute("insert into origin values ('replica')");
+        replica.execute("create table replica_lag (seconds double)");
+        replica.execute("insert into replica_lag values (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, List.of(replicaDataSource),
+                Duration.ofSeconds(5), Duration.ofMinutes(1), "select seconds from replica_lag");
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    public void readOnlyTransaction_ReadsReplica() {
+        assertEquals("replica", readOnly.execute(status -> origin()));
+        assertEquals("primary", readWrite.execute(status -> origin()));
+        assertEquals("primary", origin());
+    }
+
+    @Test
+    public void laggingReplica_ReadsPrimary() {
+        replica.update("update replica_lag set seconds = 30");
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", readOnly.execute(status -> origin()));
+
+        replica.update("update replica_lag set seconds = 0.5");
+        routingDataSource.checkReplicas();
+
+        assertEquals("replica", readOnly.execute(status -> origin()));
+    }
+
+    @Test
+    public void unavailableReplica_ReadsPrimary() {
+        replica.execute("drop table replica_lag");
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", readOnly.execute(status -> origin()));
+    }
+
+    @Test
+    public void userWrite_KeepsOwnReadsOnPrimary() throws Exception {
+        List<String> origins = new ArrayList<>();
+        asUser("1", () -> readWrite.executeWithoutResult(status ->
+                jdbc.update("insert into origin values ('written')")));
+
+        asUser("1", () -> origins.add(readOnly.execute(status -> origin())));
+        asUser("2", () -> origins.add(readOnly.execute(status -> origin())));
+
+        assertEquals(List.of("primary", "replica"), origins);
+    }
+
+    @Test
+    public void rolledBackWrite_DoesNotPinUser() throws Exception {
+        List<String> origins = new ArrayList<>();
+        asUser("1", () -> readWrite.executeWithoutResult(status -> {
+            jdbc.update("insert into origin values ('written')");
+            status.setRollbackOnly();
+        }));
+
+        asUser("1", () -> origins.add(readOnly.execute(status -> origin())));
+
+        assertEquals(List.of("replica"), origins);
+    }
+
+    private String origin() {
+        return jdbc.queryForObject("select name from origin fetch first 1 rows only", String.class);
+    }
+
+    private void asUser(String userId, Runnable action) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestUserFilter.USER_HEADER, userId);
+        new RequestUserFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> action.run());
+    }
+
+    private static DataSource database() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,238 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyFilterTest {
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+    private int status;
+    private FilterChain chain;
+
+    @BeforeEach
+    public void beforeEach() {
+        filter = new IdempotencyFilter(new ObjectMapper(), Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+        executions = new AtomicInteger();
+        status = 200;
+        chain = (request, response) -> {
+            int execution = executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"id\":" + execution + "}");
+        };
+    }
+
+    @SneakyThrows
+    @Test
+    public void duplicate_IsAnsweredFromStore() {
+        MockHttpServletResponse first = post("/bookings", "1", "key");
+        MockHttpServletResponse retry = post("/bookings", "1", "key");
+
+        assertEquals(1, executions.get());
+        assertEquals("{\"id\":1}", retry.getContentAsString());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, retry.getContentType());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @SneakyThrows
+    @Test
+    public void keys_AreScopedByUserAndPath() {
+        post("/bookings", "1", "key");
+        post("/bookings", "2", "key");
+        post("/items", "1", "key");
+        post("/bookings", "1", "other");
+        post("/bookings", "1", null);
+        post("/bookings", "1", null);
+
+        assertEquals(6, executions.get());
+    }
+
+    @SneakyThrows
+    @Test
+    public void serverError_IsNotStored() {
+        status = 500;
+        post("/items", "1", "key");
+        status = 201;
+        MockHttpServletResponse retry = post("/items", "1", "key");
+        post("/items", "1", "key");
+
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+    }
+
+    @SneakyThrows
+    @Test
+    public void invalidKey_IsRejected() {
+        MockHttpServletResponse response = post("/items", "1", "k".repeat(256));
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Idempotency-Key"));
+        assertEquals(0, executions.get());
+    }
+
+    @SneakyThrows
+    @Test
+    public void keyReusedWithOtherBody_IsRejected() {
+        List<String> bodies = new ArrayList<>();
+        FilterChain countingChain = chain;
+        chain = (request, response) -> {
+            bodies.add(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+            countingChain.doFilter(request, response);
+        };
+
+        post("/bookings", "1", "key", "{\"itemId\":1}");
+        MockHttpServletResponse retry = post("/bookings", "1", "key", "{\"itemId\":1}");
+        MockHttpServletResponse reused = post("/bookings", "1", "key", "{\"itemId\":2}");
+
+        assertEquals(List.of("{\"itemId\":1}"), bodies);
+        assertEquals(200, retry.getStatus());
+        assertEquals(422, reused.getStatus());
+        assertTrue(reused.getContentAsString().contains("different request body"));
+    }
+
+    @SneakyThrows
+    @Test
+    public void bufferedBody_IsReadThroughReadListener() {
+        List<String> events = new ArrayList<>();
+        chain = (request, response) -> {
+            ServletInputStream in = request.getInputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (in.isReady() && !in.isFinished()) {
+                        body.write(in.read());
+                    }
+                    events.add("data " + body.toString(StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("all read");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        };
+
+        post("/bookings", "1", "key", "{\"itemId\":1}");
+
+        assertEquals(List.of("data {\"itemId\":1}", "all read"), events);
+    }
+
+    @SneakyThrows
+    @Test
+    public void runningRequest_IsNotEvicted() {
+        filter = new IdempotencyFilter(new ObjectMapper(), Duration.ofMinutes(1), 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain fastChain = chain;
+        chain = (request, response) -> {
+            if ("slow".equals(((HttpServletRequest) request).getHeader(IdempotencyFilter.KEY_HEADER))) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            fastChain.doFilter(request, response);
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        Future<MockHttpServletResponse> slow = clients.submit(() -> post("/bookings", "1", "slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            post("/bookings", "1", "fast " + i);
+        }
+        Thread.sleep(200);
+
+        Future<MockHttpServletResponse> retry = clients.submit(() -> post("/bookings", "1", "slow"));
+        Thread.sleep(200);
+        release.countDown();
+
+        String slowResponse = slow.get(5, TimeUnit.SECONDS).getContentAsString();
+        assertEquals(slowResponse, retry.get(5, TimeUnit.SECONDS).getContentAsString());
+        assertEquals(6, executions.get());
+        clients.shutdown();
+    }
+
+    @SneakyThrows
+    @Test
+    public void concurrentDuplicates_CoalesceOnSingleExecution() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowChain = chain;
+        chain = (request, response) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowChain.doFilter(request, response);
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        responses.add(clients.submit(() -> post("/bookings", "1", "key")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            responses.add(clients.submit(() -> post("/bookings", "1", "key")));
+        }
+        release.countDown();
+
+        for (Future<MockHttpServletResponse> response : responses) {
+            assertEquals("{\"id\":1}", response.get(5, TimeUnit.SECONDS).getContentAsString());
+        }
+        clients.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    private MockHttpServletResponse post(String path, String userId, String key) throws Exception {
+        return post(path, userId, key, "{}");
+    }
+
+    private MockHttpServletResponse post(String path, String userId, String key, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("X-Sharer-User-Id", userId);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
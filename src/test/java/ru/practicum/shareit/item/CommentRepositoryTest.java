@@ -0,0 +1,94 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.CommentRepository.ItemCommentCount;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class CommentRepositoryTest {
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Item item1;
+    private Item item2;
+    private List<Comment> item1Comments;
+
+    @BeforeEach
+    public void beforeEach() {
+        User user = userRepository.save(User.builder()
+                .name("name")
+                .email("email@email.com")
+                .build());
+        item1 = itemRepository.save(Item.builder()
+                .name("item 1")
+                .description("description")
+                .isAvailable(true)
+                .ownerId(user.getId())
+                .build());
+        item2 = itemRepository.save(Item.builder()
+                .name("item 2")
+                .description("description")
+                .isAvailable(true)
+                .ownerId(user.getId())
+                .build());
+
+        LocalDateTime now = LocalDateTime.now();
+        item1Comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            item1Comments.add(commentRepository.save(Comment.builder()
+                    .text("comment " + i)
+                    .author(user)
+                    .item(item1)
+                    .created(Timestamp.valueOf(now.minusDays(i)))
+                    .build()));
+        }
+        commentRepository.save(Comment.builder()
+                .text("other comment")
+                .author(user)
+                .item(item2)
+                .created(Timestamp.valueOf(now))
+                .build());
+    }
+
+    @Test
+    public void countByItemIds_Normal() {
+        Map<Long, Long> counts = commentRepository.countByItemIds(List.of(item1.getId(), item2.getId())).stream()
+                .collect(Collectors.toMap(ItemCommentCount::getItemId, ItemCommentCount::getCount));
+
+        assertEquals(Map.of(item1.getId(), 5L, item2.getId(), 1L), counts);
+    }
+
+    @Test
+    public void findLatestIds_LimitedPerItem() {
+        List<Long> ids = commentRepository.findLatestIds(List.of(item1.getId(), item2.getId()), 2);
+        List<Comment> comments = commentRepository.findWithAuthorByIdIn(ids);
+
+        assertEquals(3, comments.size());
+        List<Long> item1Ids = comments.stream()
+                .filter(c -> c.getItem().getId().equals(item1.getId()))
+                .map(Comment::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(item1Comments.get(0).getId(), item1Comments.get(1).getId()), item1Ids);
+    }
+}
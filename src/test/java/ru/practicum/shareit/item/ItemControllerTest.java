@@ -12,14 +12,21 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exceptions.handler.ErrorHandler;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.AvailabilityGranularity;
+import ru.practicum.shareit.item.dto.AvailabilitySlotDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.exceptions.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -42,6 +49,8 @@ public class ItemControllerTest {
 
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private ItemImportService itemImportService;
 
     private ItemRequestDto itemToSaveDto;
     private Item savedItem;
@@ -498,6 +507,97 @@ public class ItemControllerTest {
         verify(itemService, times(0)).deleteItem(wrongItemId, userId);
     }
 
+    @SneakyThrows
+    @Test
+    public void importItems_StreamsBodyToService() {
+        String body = "{\"name\":\"name\",\"description\":\"description\",\"available\":true}\n";
+        doAnswer(invocation -> {
+            InputStream in = invocation.getArgument(2);
+            OutputStream out = invocation.getArgument(3);
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            out.write("{\"row\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(itemImportService).importItems(eq(userId), eq(ItemImportService.NDJSON), any(InputStream.class),
+                any(OutputStream.class));
+
+        String result = mockMvc.perform(post("/items/bulk")
+                        .contentType(ItemImportService.NDJSON)
+                        .content(body)
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("{\"row\":1}\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void importItems_UnsupportedContentType() {
+        mockMvc.perform(post("/items/bulk")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<items/>")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(itemImportService, never()).importItems(anyLong(), any(), any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    public void getComments_Normal() {
+        when(itemService.getComments(itemId, from, size)).thenReturn(List.of(savedComment));
+
+        String result = mockMvc.perform(get("/items/{itemId}/comments", itemId)
+                        .param("from", String.valueOf(from))
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(List.of(expectedCommentDto)), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void getAvailability_Normal() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(2);
+        ItemAvailabilityDto availability = ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .granularity(AvailabilityGranularity.DAY)
+                .from(from)
+                .to(to)
+                .slots(List.of(AvailabilitySlotDto.builder().start(from).end(to).free(true).build()))
+                .build();
+        when(itemService.getAvailability(itemId, from, to, AvailabilityGranularity.DAY)).thenReturn(availability);
+
+        String result = mockMvc.perform(get("/items/{itemId}/availability", itemId)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-03T00:00:00")
+                        .param("granularity", "day"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(availability), result);
+    }
+
+    @SneakyThrows
+    @Test
+    public void getAvailability_UnknownGranularity() {
+        mockMvc.perform(get("/items/{itemId}/availability", itemId)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-03T00:00:00")
+                        .param("granularity", "week"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).getAvailability(any(), any(), any(), any());
+    }
+
     @SneakyThrows
     @Test
     public void addComment_Normal() {
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportService;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.user.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemImportServiceTest {
+    @Mock
+    private ItemService itemService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RequestRepository requestRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ItemImportService importService;
+    private final Long ownerId = 1L;
+
+    @BeforeEach
+    public void beforeEach() {
+        importService = new ItemImportService(itemService,
+                new UserLookupCache(userRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(5), 100), requestRepository, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+        ReflectionTestUtils.setField(importService, "entityManager", entityManager);
+    }
+
+    @Test
+    public void importItems_NdjsonInChunks() throws Exception {
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(User.builder().id(ownerId).build()));
+        List<List<Item>> chunks = assignIdsOnSave();
+        String body = "{\"name\":\"drill\",\"description\":\"cordless\",\"available\":true}\n" +
+                "{\"name\":\"\",\"description\":\"no name\",\"available\":true}\n" +
+                "\n" +
+                "{\"name\":\"saw\",\"description\":\"hand saw\",\"available\":false}\n" +
+                "{\"name\":\"broken\"\n";
+
+        List<JsonNode> results = importItems(ItemImportService.NDJSON, body);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).get("imported").asBoolean());
+        assertEquals(100L, results.get(0).get("id").asLong());
+        assertFalse(results.get(1).get("imported").asBoolean());
+        assertEquals("Name cannot be empty.", results.get(1).get("errors").get(0).asText());
+        assertEquals(3L, results.get(2).get("row").asLong());
+        assertTrue(results.get(2).get("imported").asBoolean());
+        assertFalse(results.get(3).get("imported").asBoolean());
+        assertTrue(results.get(3).get("errors").get(0).asText().startsWith("Malformed row"));
+
+        assertEquals(2, chunks.size());
+        assertEquals(ownerId, chunks.get(0).get(0).getOwnerId());
+        assertEquals("saw", chunks.get(1).get(0).getName());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void importItems_CsvResolvesRequestsOncePerChunk() throws Exception {
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(User.builder().id(ownerId).build()));
+        when(requestRepository.findAllById(Set.of(5L, 6L))).thenReturn(List.of(Request.builder().id(5L).build()));
+        List<List<Item>> chunks = assignIdsOnSave();
+        String body = "name,description,available,requestId\n" +
+                "drill,\"cordless, 18V \"\"pro\"\"\",true,5\n" +
+                "saw,hand saw,true,6\n";
+
+        List<JsonNode> results = importItems(ItemImportService.CSV, body);
+
+        assertTrue(results.get(0).get("imported").asBoolean());
+        assertFalse(results.get(1).get("imported").asBoolean());
+        assertEquals("Request id 6 not found", results.get(1).get("errors").get(0).asText());
+        assertEquals(1, chunks.size());
+        assertEquals("cordless, 18V \"pro\"", chunks.get(0).get(0).getDescription());
+        assertEquals(5L, chunks.get(0).get(0).getRequest().getId());
+        verify(requestRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void importItems_FailedChunkEndsWithAbortRecord() throws Exception {
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(User.builder().id(ownerId).build()));
+        when(itemService.addItems(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new UserNotFoundException(String.format("User id %s not found", ownerId)));
+        String body = "{\"name\":\"drill\",\"description\":\"cordless\",\"available\":true}\n" +
+                "{\"name\":\"saw\",\"description\":\"hand saw\",\"available\":true}\n" +
+                "{\"name\":\"axe\",\"description\":\"sharp\",\"available\":true}\n" +
+                "{\"name\":\"rake\",\"description\":\"garden\",\"available\":true}\n" +
+                "{\"name\":\"hoe\",\"description\":\"garden\",\"available\":true}\n";
+
+        List<JsonNode> results = importItems(ItemImportService.NDJSON, body);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(1).get("imported").asBoolean());
+        JsonNode aborted = results.get(2);
+        assertTrue(aborted.get("aborted").asBoolean());
+        assertEquals(String.format("User id %s not found", ownerId), aborted.get("error").asText());
+        assertEquals(2L, aborted.get("imported").asLong());
+        assertEquals(3L, aborted.get("fromRow").asLong());
+        verify(itemService, times(2)).addItems(anyList());
+    }
+
+    @Test
+    public void importItems_NoSuchUser() {
+        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+
+        Throwable e = assertThrows(UserNotFoundException.class, () -> importItems(ItemImportService.NDJSON, "{}"));
+
+        assertEquals(String.format("User id %s not found", ownerId), e.getMessage());
+        verify(itemService, never()).addItems(anyList());
+    }
+
+    private List<List<Item>> assignIdsOnSave() {
+        List<List<Item>> chunks = new ArrayList<>();
+        ArgumentCaptor<List<Item>> captor = ArgumentCaptor.forClass(List.class);
+        when(itemService.addItems(captor.capture())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            for (Item item : items) {
+                item.setId(100L + chunks.size());
+            }
+            chunks.add(new ArrayList<>(items));
+            return items;
+        });
+        return chunks;
+    }
+
+    private List<JsonNode> importItems(String contentType, String body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importService.importItems(ownerId, contentType,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+}
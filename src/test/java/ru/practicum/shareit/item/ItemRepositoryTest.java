@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,21 +10,34 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class ItemRepositoryTest {
 
     @Autowired
     private ItemRepository itemRepository;
     @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private RequestRepository requestRepository;
 
     private User savedUser1;
     private User savedUser2;
@@ -93,25 +108,64 @@ public class ItemRepositoryTest {
     }
 
     @Test
-    public void findItem_Normal() {
-        Item expectedItem = Item.builder()
-                .name(item2.getName())
-                .description(item2.getDescription())
-                .isAvailable(item2.getIsAvailable())
-                .ownerId(item2.getOwnerId())
-                .build();
+    public void searchAvailable_MatchesPhraseInAvailableItemsById() {
+        Item item3 = itemRepository.save(Item.builder()
+                .name("drill")
+                .description("Other NAME tag")
+                .isAvailable(true)
+                .ownerId(savedUser2.getId())
+                .build());
+
+        assertEquals(List.of(item1.getId(), item3.getId()), ids(itemRepository.searchAvailable("%name%", page)));
+        assertEquals(List.of(item3.getId()), ids(itemRepository.searchAvailable("%er name%", page)));
+        assertEquals(List.of(item3.getId()),
+                ids(itemRepository.searchAvailable("%name%", PageRequest.of(1, 1))));
+        assertTrue(itemRepository.searchAvailable("%other description%", page).isEmpty());
+        assertTrue(itemRepository.searchAvailable("%na\\_e%", page).isEmpty());
+    }
 
-        String text = "oth"; // "other"
+    @Test
+    public void findIdsByOwnerIdOrRequesterId_OwnedAndAnsweringItems() {
+        Request request = requestRepository.save(Request.builder()
+                .description("description")
+                .requester(savedUser1)
+                .created(Timestamp.valueOf(LocalDateTime.now()))
+                .build());
+        Item answer = itemRepository.save(Item.builder()
+                .name("answer")
+                .description("description")
+                .isAvailable(true)
+                .ownerId(savedUser2.getId())
+                .request(request)
+                .build());
 
-        List<Item> savedItems = itemRepository
-                .findItemByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(text, text, page)
-                .getContent();
+        List<Long> itemIds = itemRepository.findIdsByOwnerIdOrRequesterId(savedUser1.getId());
 
-        assertEquals(1, savedItems.size());
-        assertEquals(1, savedItems.size());
-        assertEquals(expectedItem.getName(), savedItems.get(0).getName());
-        assertEquals(expectedItem.getDescription(), savedItems.get(0).getDescription());
-        assertEquals(expectedItem.getIsAvailable(), savedItems.get(0).getIsAvailable());
-        assertEquals(expectedItem.getOwnerId(), savedItems.get(0).getOwnerId());
+        assertEquals(Set.of(item1.getId(), answer.getId()), new HashSet<>(itemIds));
+    }
+
+    @Test
+    public void saveAll_InsertsInBatches() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(Item.builder()
+                    .name("item " + i)
+                    .description("description")
+                    .isAvailable(true)
+                    .ownerId(savedUser1.getId())
+                    .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        itemRepository.saveAll(items);
+        itemRepository.flush();
+
+        assertEquals(200, items.stream().map(Item::getId).distinct().count());
+        assertTrue(statistics.getPrepareStatementCount() < 10);
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
     }
 }
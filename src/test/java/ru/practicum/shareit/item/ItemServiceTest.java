@@ -4,28 +4,43 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.AvailabilityGranularity;
+import ru.practicum.shareit.item.dto.AvailabilitySlotDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.exceptions.CommentNotAllowedException;
 import ru.practicum.shareit.item.exceptions.ItemNotFoundException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.CommentRepository.ItemCommentCount;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemCommentLoader;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxPublisher;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,7 +57,12 @@ public class ItemServiceTest {
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
-    @InjectMocks
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private BookingArchiveRepository archiveRepository;
+    @Mock
+    private OutboxPublisher outbox;
     private ItemService itemService;
 
     private Item itemToSave;
@@ -60,6 +80,10 @@ public class ItemServiceTest {
 
     @BeforeEach
     public void init() {
+        itemService = new ItemService(itemRepository, new UserLookupCache(userRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(5), 100),
+                bookingRepository, commentRepository, new ItemCommentLoader(commentRepository),
+                availabilityIndex, archiveRepository, outbox);
+
         user = User.builder()
                 .id(1L)
                 .build();
@@ -127,13 +151,15 @@ public class ItemServiceTest {
     @Test
     public void addItem_Normal() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(itemRepository.save(itemToSave)).thenReturn(savedItem);
+        when(itemRepository.saveAndFlush(itemToSave)).thenReturn(savedItem);
 
         Item savedItem = itemService.addItem(itemToSave);
         assertEquals(this.savedItem, savedItem);
         InOrder inOrder = inOrder(userRepository, itemRepository);
         inOrder.verify(userRepository, times(1)).findById(itemToSave.getOwnerId());
-        inOrder.verify(itemRepository, times(1)).save(itemToSave);
+        inOrder.verify(itemRepository, times(1)).saveAndFlush(itemToSave);
+        verify(outbox, times(1)).append(OutboxEventType.ITEM_CREATED, this.savedItem.getId(),
+                ItemMapper.mapToEventDto(this.savedItem));
     }
 
     @Test
@@ -145,7 +171,7 @@ public class ItemServiceTest {
         Throwable e = assertThrows(ItemNotFoundException.class, () -> itemService.addItem(itemToSave));
         assertEquals(String.format("User id %s not found", itemToSave.getOwnerId()), e.getMessage());
         verify(userRepository, times(1)).findById(itemToSave.getOwnerId());
-        verify(itemRepository, never()).save(any(Item.class));
+        verify(itemRepository, never()).saveAndFlush(any(Item.class));
     }
 
     @Test
@@ -153,12 +179,12 @@ public class ItemServiceTest {
         itemToUpdate.setName("updated name");
         updatedItem.setName(itemToUpdate.getName());
 
-        when(itemRepository.findById(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
+        when(itemRepository.findByIdForUpdate(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
         when(itemRepository.save(any(Item.class))).thenReturn(updatedItem);
 
         Item updatedItem = itemService.updateItem(itemToUpdate);
         assertEquals(savedItem, updatedItem);
-        verify(itemRepository, times(1)).findById(itemToUpdate.getId());
+        verify(itemRepository, times(1)).findByIdForUpdate(itemToUpdate.getId());
         verify(itemRepository, times(1)).save(any(Item.class));
     }
 
@@ -167,12 +193,12 @@ public class ItemServiceTest {
         itemToUpdate.setDescription("updated description");
         updatedItem.setDescription(itemToUpdate.getDescription());
 
-        when(itemRepository.findById(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
+        when(itemRepository.findByIdForUpdate(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
         when(itemRepository.save(any(Item.class))).thenReturn(updatedItem);
 
         Item updatedItem = itemService.updateItem(itemToUpdate);
         assertEquals(savedItem, updatedItem);
-        verify(itemRepository, times(1)).findById(itemToUpdate.getId());
+        verify(itemRepository, times(1)).findByIdForUpdate(itemToUpdate.getId());
         verify(itemRepository, times(1)).save(any(Item.class));
     }
 
@@ -181,12 +207,12 @@ public class ItemServiceTest {
         itemToUpdate.setIsAvailable(false);
         updatedItem.setIsAvailable(itemToUpdate.getIsAvailable());
 
-        when(itemRepository.findById(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
+        when(itemRepository.findByIdForUpdate(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
         when(itemRepository.save(any(Item.class))).thenReturn(updatedItem);
 
         Item updatedItem = itemService.updateItem(itemToUpdate);
         assertEquals(savedItem, updatedItem);
-        verify(itemRepository, times(1)).findById(itemToUpdate.getId());
+        verify(itemRepository, times(1)).findByIdForUpdate(itemToUpdate.getId());
         verify(itemRepository, times(1)).save(any(Item.class));
     }
 
@@ -195,11 +221,11 @@ public class ItemServiceTest {
         itemToUpdate.setIsAvailable(false);
         itemToUpdate.setId(9999L);
 
-        when(itemRepository.findById(itemToUpdate.getId())).thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(itemToUpdate.getId())).thenReturn(Optional.empty());
 
         Throwable e = assertThrows(ItemNotFoundException.class, () -> itemService.updateItem(itemToUpdate));
         assertEquals(String.format("Item id %s not found", itemToUpdate.getId()), e.getMessage());
-        verify(itemRepository, times(1)).findById(itemToUpdate.getId());
+        verify(itemRepository, times(1)).findByIdForUpdate(itemToUpdate.getId());
         verify(itemRepository, times(0)).save(any(Item.class));
     }
 
@@ -208,11 +234,11 @@ public class ItemServiceTest {
         itemToUpdate.setIsAvailable(false);
         itemToUpdate.setOwnerId(9999L);
 
-        when(itemRepository.findById(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
+        when(itemRepository.findByIdForUpdate(itemToUpdate.getId())).thenReturn(Optional.of(savedItem));
 
         Throwable e = assertThrows(ItemNotFoundException.class, () -> itemService.updateItem(itemToUpdate));
         assertEquals(String.format("Item id %s not found", itemToUpdate.getId()), e.getMessage());
-        verify(itemRepository, times(1)).findById(itemToUpdate.getId());
+        verify(itemRepository, times(1)).findByIdForUpdate(itemToUpdate.getId());
         verify(itemRepository, never()).save(any(Item.class));
     }
 
@@ -220,15 +246,41 @@ public class ItemServiceTest {
     public void getAllItems_OwnerNormal() {
         when(itemRepository.findAllByOwnerId(anyLong(), any(PageRequest.class)))
                 .thenReturn(new PageImpl<>(savedItems));
-        when(bookingRepository.findLastBooking(anyLong(), any(Timestamp.class)))
+        when(bookingRepository.findLastBookings(anyCollection(), any(Timestamp.class)))
                 .thenReturn(lastBookings);
-        when(bookingRepository.findNextBooking(anyLong(), any(Timestamp.class)))
+        when(bookingRepository.findNextBookings(anyCollection(), any(Timestamp.class)))
                 .thenReturn(nextBookings);
         int from = 0;
         int size = 10;
 
         List<Item> result = itemService.getAllItems(user.getId(), from, size);
         assertEquals(savedItems, result);
+        assertEquals(lastBooking, result.get(0).getLastBooking());
+        assertEquals(nextBooking, result.get(0).getNextBooking());
+    }
+
+    @Test
+    public void getAllItems_OwnerSeveralItemsSingleQuery() {
+        Item otherItem = Item.builder()
+                .id(2L)
+                .name("other name")
+                .ownerId(user.getId())
+                .build();
+        savedItems.add(otherItem);
+        when(itemRepository.findAllByOwnerId(anyLong(), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(savedItems));
+        when(bookingRepository.findLastBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(lastBookings);
+        when(bookingRepository.findNextBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(nextBookings);
+
+        List<Item> result = itemService.getAllItems(user.getId(), 0, 10);
+
+        assertEquals(lastBooking, result.get(0).getLastBooking());
+        assertNull(result.get(1).getLastBooking());
+        assertNull(result.get(1).getNextBooking());
+        verify(bookingRepository, times(1)).findLastBookings(eq(List.of(1L, 2L)), any(Timestamp.class));
+        verify(bookingRepository, times(1)).findNextBookings(anyCollection(), any(Timestamp.class));
     }
 
     @Test
@@ -243,8 +295,8 @@ public class ItemServiceTest {
         assertEquals(savedItems, result);
         verify(itemRepository, times(1)).findAll(any(PageRequest.class));
         verify(itemRepository, never()).findAllByOwnerId(anyLong(), any(PageRequest.class));
-        verify(bookingRepository, never()).findLastBooking(anyLong(), any(Timestamp.class));
-        verify(bookingRepository, never()).findNextBooking(anyLong(), any(Timestamp.class));
+        verify(bookingRepository, never()).findLastBookings(anyCollection(), any(Timestamp.class));
+        verify(bookingRepository, never()).findNextBookings(anyCollection(), any(Timestamp.class));
     }
 
     @Test
@@ -261,15 +313,15 @@ public class ItemServiceTest {
     @Test
     public void getItem_ByOwnerNormal() {
         when(itemRepository.findById(savedItem.getId())).thenReturn(Optional.of(savedItem));
-        when(bookingRepository.findLastBooking(anyLong(), any(Timestamp.class)))
+        when(bookingRepository.findLastBookings(anyCollection(), any(Timestamp.class)))
                 .thenReturn(lastBookings);
-        when(bookingRepository.findNextBooking(anyLong(), any(Timestamp.class)))
+        when(bookingRepository.findNextBookings(anyCollection(), any(Timestamp.class)))
                 .thenReturn(nextBookings);
 
         Item actualItem = itemService.getItem(savedItem.getId(), savedItem.getOwnerId());
         assertEquals(savedItem, actualItem);
-        verify(bookingRepository, times(1)).findLastBooking(anyLong(), any(Timestamp.class));
-        verify(bookingRepository, times(1)).findNextBooking(anyLong(), any(Timestamp.class));
+        verify(bookingRepository, times(1)).findLastBookings(anyCollection(), any(Timestamp.class));
+        verify(bookingRepository, times(1)).findNextBookings(anyCollection(), any(Timestamp.class));
     }
 
     @Test
@@ -278,8 +330,8 @@ public class ItemServiceTest {
 
         Item actualItem = itemService.getItem(savedItem.getId(), savedItem.getOwnerId() + 999);
         assertEquals(savedItem, actualItem);
-        verify(bookingRepository, never()).findLastBooking(anyLong(), any(Timestamp.class));
-        verify(bookingRepository, never()).findNextBooking(anyLong(), any(Timestamp.class));
+        verify(bookingRepository, never()).findLastBookings(anyCollection(), any(Timestamp.class));
+        verify(bookingRepository, never()).findNextBookings(anyCollection(), any(Timestamp.class));
     }
 
     @Test
@@ -290,27 +342,39 @@ public class ItemServiceTest {
                 itemService.getItem(savedItem.getId(), savedItem.getOwnerId()));
 
         assertEquals(String.format("Item id %s not found", savedItem.getId()), e.getMessage());
-        verify(bookingRepository, never()).findLastBooking(anyLong(), any(Timestamp.class));
-        verify(bookingRepository, never()).findNextBooking(anyLong(), any(Timestamp.class));
+        verify(bookingRepository, never()).findLastBookings(anyCollection(), any(Timestamp.class));
+        verify(bookingRepository, never()).findNextBookings(anyCollection(), any(Timestamp.class));
     }
 
     @Test
     public void searchItem_Normal() {
-        when(itemRepository
-                .findItemByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(any(), any(), any()))
-                .thenReturn(new PageImpl<>(savedItems));
-        when(bookingRepository.findLastBooking(anyLong(), any(Timestamp.class)))
-                .thenReturn(lastBookings);
-        when(bookingRepository.findNextBooking(anyLong(), any(Timestamp.class)))
-                .thenReturn(nextBookings);
         int from = 0;
         int size = 10;
         String text = "text";
+        when(itemRepository.searchAvailable("%text%", PageRequest.of(0, size))).thenReturn(savedItems);
+        when(bookingRepository.findLastBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(lastBookings);
+        when(bookingRepository.findNextBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(nextBookings);
 
         List<Item> result = itemService.searchItem(text, user.getId(), from, size);
         assertEquals(savedItems, result);
     }
 
+    @Test
+    public void searchItem_MatchesPhraseLiterally() {
+        int from = 10;
+        int size = 10;
+        when(itemRepository.searchAvailable("%50\\% off\\_sale%", PageRequest.of(1, size))).thenReturn(savedItems);
+        when(bookingRepository.findLastBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(lastBookings);
+        when(bookingRepository.findNextBookings(anyCollection(), any(Timestamp.class)))
+                .thenReturn(nextBookings);
+
+        List<Item> result = itemService.searchItem("50% OFF_Sale", user.getId(), from, size);
+        assertEquals(savedItems, result);
+    }
+
     @Test
     public void searchItem_EmptyTextNormal() {
         String text = "";
@@ -330,9 +394,7 @@ public class ItemServiceTest {
         result = itemService.searchItem(text, user.getId(), from, size);
         assertTrue(result.isEmpty());
 
-        verify(itemRepository, never())
-                .findItemByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(anyString(),
-                        anyString(), any(PageRequest.class));
+        verify(itemRepository, never()).searchAvailable(any(), any());
     }
 
     @Test
@@ -367,6 +429,62 @@ public class ItemServiceTest {
         verify(itemRepository, never()).deleteById(savedItem.getId());
     }
 
+    @Test
+    public void getItem_LatestCommentsAndCount() {
+        when(itemRepository.findById(savedItem.getId())).thenReturn(Optional.of(savedItem));
+        when(commentRepository.countByItemIds(List.of(savedItem.getId())))
+                .thenReturn(List.of(commentCount(savedItem.getId(), 25L)));
+        when(commentRepository.findLatestIds(eq(List.of(savedItem.getId())), anyInt()))
+                .thenReturn(List.of(savedComment.getId()));
+        when(commentRepository.findWithAuthorByIdIn(List.of(savedComment.getId())))
+                .thenReturn(List.of(savedComment));
+
+        Item result = itemService.getItem(savedItem.getId(), user.getId() + 1);
+
+        assertEquals(List.of(savedComment), result.getComments());
+        assertEquals(25L, result.getCommentsCount());
+    }
+
+    @Test
+    public void searchItem_LatestCommentsAndCount() {
+        when(itemRepository.searchAvailable("%text%", PageRequest.of(0, 10))).thenReturn(savedItems);
+        when(commentRepository.countByItemIds(List.of(savedItem.getId())))
+                .thenReturn(List.of(commentCount(savedItem.getId(), 3L)));
+        when(commentRepository.findLatestIds(eq(List.of(savedItem.getId())), anyInt()))
+                .thenReturn(List.of(savedComment.getId()));
+        when(commentRepository.findWithAuthorByIdIn(List.of(savedComment.getId())))
+                .thenReturn(List.of(savedComment));
+
+        List<Item> result = itemService.searchItem("text", user.getId(), 0, 10);
+
+        assertEquals(List.of(savedComment), result.get(0).getComments());
+        assertEquals(3L, result.get(0).getCommentsCount());
+    }
+
+    @Test
+    public void getComments_Normal() {
+        when(itemRepository.existsById(savedItem.getId())).thenReturn(true);
+        when(commentRepository.findByItemId(eq(savedItem.getId()), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(List.of(savedComment)));
+
+        List<Comment> result = itemService.getComments(savedItem.getId(), 20, 10);
+
+        assertEquals(List.of(savedComment), result);
+        verify(commentRepository).findByItemId(savedItem.getId(),
+                PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "created", "id")));
+    }
+
+    @Test
+    public void getComments_NoSuchItem() {
+        when(itemRepository.existsById(savedItem.getId())).thenReturn(false);
+
+        Throwable e = assertThrows(ItemNotFoundException.class, () ->
+                itemService.getComments(savedItem.getId(), 0, 10));
+
+        assertEquals(String.format("Item id %s not found", savedItem.getId()), e.getMessage());
+        verify(commentRepository, never()).findByItemId(anyLong(), any(PageRequest.class));
+    }
+
     @Test
     public void addComment_Normal() {
         when(itemRepository.findById(commentToSave.getItem().getId()))
@@ -380,11 +498,11 @@ public class ItemServiceTest {
 
         when(bookingRepository.findByItemIdAndBookerIdAndStatusNotAndStartDateBefore(anyLong(),
                 anyLong(), any(Status.class), any(Timestamp.class))).thenReturn(bookings);
-        when(commentRepository.save(any(Comment.class))).thenReturn(savedComment);
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(savedComment);
 
         Comment result = itemService.addComment(commentToSave);
         assertEquals(savedComment, result);
-        verify(commentRepository, times(1)).save(any(Comment.class));
+        verify(commentRepository, times(1)).saveAndFlush(any(Comment.class));
     }
 
     @Test
@@ -399,7 +517,7 @@ public class ItemServiceTest {
         verify(bookingRepository, never())
                 .findByItemIdAndBookerIdAndStatusNotAndStartDateBefore(anyLong(), anyLong(),
                         any(Status.class), any(Timestamp.class));
-        verify(commentRepository, never()).save(any(Comment.class));
+        verify(commentRepository, never()).saveAndFlush(any(Comment.class));
     }
 
     @Test
@@ -414,7 +532,7 @@ public class ItemServiceTest {
         verify(bookingRepository, never())
                 .findByItemIdAndBookerIdAndStatusNotAndStartDateBefore(anyLong(), anyLong(),
                         any(Status.class), any(Timestamp.class));
-        verify(commentRepository, never()).save(any(Comment.class));
+        verify(commentRepository, never()).saveAndFlush(any(Comment.class));
     }
 
     @Test
@@ -427,6 +545,78 @@ public class ItemServiceTest {
 
         assertEquals(String.format("User id %s did not book item and cannot leave comment",
                 commentToSave.getAuthor().getId()), e.getMessage());
-        verify(commentRepository, never()).save(any(Comment.class));
+        verify(commentRepository, never()).saveAndFlush(any(Comment.class));
+    }
+
+    @Test
+    public void addComment_BookingArchived() {
+        when(itemRepository.findById(commentToSave.getItem().getId())).thenReturn(Optional.of(savedItem));
+        when(userRepository.findById(commentToSave.getAuthor().getId())).thenReturn(Optional.of(user));
+        when(archiveRepository.countArchivedByItemIdAndBookerId(savedItem.getId(), user.getId())).thenReturn(1L);
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(savedComment);
+
+        assertEquals(savedComment, itemService.addComment(commentToSave));
+    }
+
+    private ItemCommentCount commentCount(Long itemId, Long count) {
+        return new ItemCommentCount() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
+    @Test
+    public void getAvailability_MergesSlotsIntoRuns() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 30);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 1, 15, 0);
+        BitSet busy = new BitSet();
+        busy.set(1, 3);
+        savedItem.setIsAvailable(true);
+        when(itemRepository.findById(savedItem.getId())).thenReturn(Optional.of(savedItem));
+        when(availabilityIndex.busySlots(eq(savedItem.getId()), anyList())).thenReturn(busy);
+
+        ItemAvailabilityDto availability = itemService.getAvailability(savedItem.getId(), from, to,
+                AvailabilityGranularity.HOUR);
+
+        LocalDateTime hour = LocalDateTime.of(2030, 1, 1, 10, 0);
+        assertEquals(hour, availability.getFrom());
+        assertEquals(to, availability.getTo());
+        assertTrue(availability.getAvailable());
+        assertEquals(List.of(
+                AvailabilitySlotDto.builder().start(hour).end(hour.plusHours(1)).free(true).build(),
+                AvailabilitySlotDto.builder().start(hour.plusHours(1)).end(hour.plusHours(3)).free(false).build(),
+                AvailabilitySlotDto.builder().start(hour.plusHours(3)).end(to).free(true).build()),
+                availability.getSlots());
+        verify(availabilityIndex).busySlots(eq(savedItem.getId()), argThat(boundaries -> boundaries.size() == 6));
+    }
+
+    @Test
+    public void getAvailability_UnavailableItemHasNoSlots() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        savedItem.setIsAvailable(false);
+        when(itemRepository.findById(savedItem.getId())).thenReturn(Optional.of(savedItem));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(savedItem.getId(), from, from.plusHours(5),
+                AvailabilityGranularity.HOUR);
+
+        assertFalse(availability.getAvailable());
+        assertTrue(availability.getSlots().isEmpty());
+        verify(availabilityIndex, never()).busySlots(any(), anyList());
+    }
+
+    @Test
+    public void getAvailability_TooManySlots() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(savedItem.getId(), from,
+                from.plusYears(1), AvailabilityGranularity.HOUR));
+        verify(availabilityIndex, never()).busySlots(any(), anyList());
     }
 }
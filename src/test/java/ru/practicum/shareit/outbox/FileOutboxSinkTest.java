@@ -0,0 +1,44 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileOutboxSinkTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void publish_AppendsJsonLines(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("outbox.jsonl");
+        FileOutboxSink sink = new FileOutboxSink(file, objectMapper);
+
+        sink.publish(List.of(event(1L, "{\"id\":10}")));
+        sink.publish(List.of(event(2L, "{\"id\":11}")));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertEquals(2L, second.get("id").asLong());
+        assertEquals("BOOKING_CREATED", second.get("type").asText());
+        assertEquals(11L, second.get("payload").get("id").asLong());
+    }
+
+    private static OutboxEvent event(Long id, String payload) {
+        return OutboxEvent.builder()
+                .id(id)
+                .eventType(OutboxEventType.BOOKING_CREATED)
+                .aggregateId(id + 9)
+                .payload(payload)
+                .created(Timestamp.valueOf(LocalDateTime.now()))
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.outbox;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class InMemoryOutboxSink implements OutboxSink {
+    private final BlockingQueue<OutboxEvent> events = new LinkedBlockingQueue<>();
+    private volatile RuntimeException failure;
+
+    @Override
+    public void publish(List<OutboxEvent> batch) {
+        if (failure != null) {
+            throw failure;
+        }
+        events.addAll(batch);
+    }
+
+    public BlockingQueue<OutboxEvent> events() {
+        return events;
+    }
+
+    public void failWith(RuntimeException failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemEventDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OutboxPublisher.class, OutboxDispatcher.class, OutboxDispatcherTest.Sinks.class})
+@TestPropertySource(properties = "shareit.outbox.batch-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTest {
+    @Autowired
+    private OutboxPublisher publisher;
+    @Autowired
+    private OutboxDispatcher dispatcher;
+    @Autowired
+    private OutboxEventRepository outboxRepository;
+    @Autowired
+    private InMemoryOutboxSink sink;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        sink.events().clear();
+        sink.failWith(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void append_RequiresTransaction() {
+        assertThrows(RuntimeException.class, () -> publisher.append(OutboxEventType.ITEM_CREATED, 1L, Map.of()));
+    }
+
+    @Test
+    void dispatch_DeliversEventsInOrderAndDrainsOutbox() throws Exception {
+        appendItemEvents(1L, 2L, 3L);
+
+        assertEquals(3, dispatcher.dispatch());
+
+        List<OutboxEvent> delivered = List.copyOf(sink.events());
+        assertEquals(List.of(1L, 2L, 3L),
+                delivered.stream().map(OutboxEvent::getAggregateId).collect(Collectors.toList()));
+        assertEquals("item 2", objectMapper.readValue(delivered.get(1).getPayload(), ItemEventDto.class).getName());
+        assertEquals(0, outboxRepository.count());
+        assertEquals(Duration.ZERO, dispatcher.lag());
+    }
+
+    @Test
+    void dispatch_KeepsEventsWhenSinkFails() {
+        appendItemEvents(1L, 2L);
+        sink.failWith(new IllegalStateException("sink down"));
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(2, outboxRepository.count());
+        assertFalse(dispatcher.lag().isNegative());
+
+        sink.failWith(null);
+
+        assertEquals(2, dispatcher.dispatch());
+        assertEquals(2, sink.events().size());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void append_WithoutSinksStoresNothing() {
+        OutboxPublisher withoutSinks = new OutboxPublisher(outboxRepository, objectMapper, List.of());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                withoutSinks.append(OutboxEventType.ITEM_CREATED, 1L, ItemEventDto.builder().id(1L).build()));
+
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private void appendItemEvents(Long... itemIds) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Long itemId : itemIds) {
+                publisher.append(OutboxEventType.ITEM_CREATED, itemId,
+                        ItemEventDto.builder().id(itemId).name("item " + itemId).build());
+            }
+        });
+    }
+
+    @TestConfiguration
+    static class Sinks {
+        @Bean
+        InMemoryOutboxSink inMemoryOutboxSink() {
+            return new InMemoryOutboxSink();
+        }
+    }
+}
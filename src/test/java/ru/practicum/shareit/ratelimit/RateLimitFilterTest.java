@@ -0,0 +1,152 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitFilterTest {
+    private RateLimitProperties properties;
+    private RateLimitFilter filter;
+    private AtomicInteger passed;
+    private long now;
+
+    @BeforeEach
+    public void beforeEach() {
+        properties = new RateLimitProperties();
+        properties.getRoutes().add(route("/items/search", 3, 1));
+        properties.getRoutes().add(route("/bookings/owner", 2, 0.5));
+        filter = new RateLimitFilter(properties, new ObjectMapper(), () -> now);
+        passed = new AtomicInteger();
+        now = 0;
+    }
+
+    @SneakyThrows
+    @Test
+    public void emptyBucket_Returns429WithRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, get("/items/search", "1").getStatus());
+        }
+
+        MockHttpServletResponse rejected = get("/items/search", "1");
+
+        assertEquals(3, passed.get());
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many requests to /items/search"));
+    }
+
+    @Test
+    public void bucket_RefillsOverTime() {
+        get("/bookings/owner", "1");
+        get("/bookings/owner", "1");
+        assertEquals("2", get("/bookings/owner", "1").getHeader("Retry-After"));
+
+        now += TimeUnit.MILLISECONDS.toNanos(1500);
+        assertEquals("1", get("/bookings/owner", "1").getHeader("Retry-After"));
+
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        assertEquals(200, get("/bookings/owner", "1").getStatus());
+        assertEquals(429, get("/bookings/owner", "1").getStatus());
+
+        now += TimeUnit.MINUTES.toNanos(1);
+        get("/bookings/owner", "1");
+        get("/bookings/owner", "1");
+        assertEquals(429, get("/bookings/owner", "1").getStatus());
+        assertEquals(5, passed.get());
+    }
+
+    @Test
+    public void buckets_AreKeyedByUserAndRoute() {
+        for (int i = 0; i < 3; i++) {
+            get("/items/search", "1");
+        }
+
+        assertEquals(429, get("/items/search", "1").getStatus());
+        assertEquals(200, get("/items/search", "2").getStatus());
+        assertEquals(200, get("/bookings/owner", "1").getStatus());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, get("/items", "1").getStatus());
+        }
+    }
+
+    @Test
+    public void subpaths_ShareTheLongestMatchingRoute() {
+        properties.getRoutes().add(route("/bookings", 100, 1));
+        filter = new RateLimitFilter(properties, new ObjectMapper(), () -> now);
+
+        assertEquals(200, get("/bookings/owner/summary", "1").getStatus());
+        assertEquals(200, get("/bookings/owner/after", "1").getStatus());
+        assertEquals(429, get("/bookings/owner", "1").getStatus());
+        assertEquals(200, get("/bookings/owners", "1").getStatus());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, get("/items/search/", "1").getStatus());
+        }
+        assertEquals(429, get("/items/search", "1").getStatus());
+        assertEquals(200, get("/items/searches", "1").getStatus());
+    }
+
+    @Test
+    public void invalidLimit_IsRejected() {
+        properties.getRoutes().add(route("/items", 0, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitFilter(properties, new ObjectMapper()));
+    }
+
+    @SneakyThrows
+    @Test
+    public void concurrentRequests_TakeExactlyCapacity() {
+        properties.getRoutes().clear();
+        properties.getRoutes().add(route("/items/search", 1000, 1));
+        filter = new RateLimitFilter(properties, new ObjectMapper(), () -> now);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        Callable<Void> client = () -> {
+            for (int i = 0; i < 500; i++) {
+                get("/items/search", "1");
+            }
+            return null;
+        };
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(clients.submit(client));
+        }
+        for (Future<Void> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        clients.shutdown();
+
+        assertEquals(1000, passed.get());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse get(String path, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("X-Sharer-User-Id", userId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> passed.incrementAndGet());
+        return response;
+    }
+
+    private static RateLimitProperties.Route route(String path, long capacity, double refillPerSecond) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPath(path);
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(refillPerSecond);
+        return route;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.request;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserLookupCache;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({RequestService.class, UserLookupCache.class})
+public class RequestServiceQueryCountTest {
+    private static final int REQUESTS = 20;
+
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private UserLookupCache userLookupCache;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User requester;
+    private User other;
+
+    @BeforeEach
+    public void beforeEach() {
+        requester = entityManager.persist(User.builder().name("requester").email("requester@mail.com").build());
+        other = entityManager.persist(User.builder().name("other").email("other@mail.com").build());
+        for (int i = 0; i < REQUESTS; i++) {
+            Request request = entityManager.persist(Request.builder()
+                    .description("request " + i)
+                    .created(Timestamp.valueOf(LocalDateTime.now().minusMinutes(i)))
+                    .requester(requester)
+                    .build());
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(Item.builder()
+                        .name("item " + i + "." + j)
+                        .description("description")
+                        .isAvailable(true)
+                        .ownerId(other.getId())
+                        .request(request)
+                        .build());
+            }
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    public void findUserRequest_StatementCountDoesNotDependOnPageSize() {
+        long single = countStatements(() -> requestService.findUserRequest(requester.getId(), 0, 1), 1);
+        long page = countStatements(() -> requestService.findUserRequest(requester.getId(), 0, REQUESTS), REQUESTS);
+
+        assertEquals(single, page);
+    }
+
+    @Test
+    public void findAllRequests_StatementCountDoesNotDependOnPageSize() {
+        long single = countStatements(() -> requestService.findAllRequests(other.getId(), 0, 1), 1);
+        long page = countStatements(() -> requestService.findAllRequests(other.getId(), 0, REQUESTS), REQUESTS);
+
+        assertEquals(single, page);
+    }
+
+    private long countStatements(RequestQuery query, int expectedRequests) {
+        entityManager.clear();
+        userLookupCache.invalidate(requester.getId());
+        userLookupCache.invalidate(other.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ItemRequestResponseDto> requests = query.run();
+
+        assertEquals(expectedRequests, requests.size());
+        requests.forEach(r -> assertEquals(2, r.getItems().size()));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private interface RequestQuery {
+        List<ItemRequestResponseDto> run();
+    }
+}
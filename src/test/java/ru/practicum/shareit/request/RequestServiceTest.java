@@ -3,12 +3,13 @@ package ru.practicum.shareit.request;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.exceptions.RequestNotFoundException;
@@ -18,8 +19,10 @@ import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,7 +40,9 @@ public class RequestServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private ItemRepository itemRepository;
+
     private RequestService requestService;
 
     private ItemRequestRequestDto itemRequestRequestDtoToSave;
@@ -48,6 +53,9 @@ public class RequestServiceTest {
 
     @BeforeEach
     public void beforeEach() {
+        requestService = new RequestService(requestRepository,
+                new UserLookupCache(userRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(5), 100), itemRepository);
+
         requester = User.builder()
                 .id(1L)
                 .build();
@@ -80,12 +88,12 @@ public class RequestServiceTest {
     @Test
     public void addRequest_Normal() {
         when(userRepository.findById(requester.getId())).thenReturn(Optional.of(requester));
-        when(requestRepository.save(any(Request.class))).thenReturn(savedRequest);
+        when(requestRepository.saveAndFlush(any(Request.class))).thenReturn(savedRequest);
 
         ItemRequestResponseDto actualRequest = requestService.addRequest(itemRequestRequestDtoToSave);
 
         assertEquals(savedItemRequestRequestDto, actualRequest);
-        verify(requestRepository).save(any(Request.class));
+        verify(requestRepository).saveAndFlush(any(Request.class));
     }
 
     @Test
@@ -95,13 +103,13 @@ public class RequestServiceTest {
         Throwable e = assertThrows(UserNotFoundException.class, () -> requestService.addRequest(itemRequestRequestDtoToSave));
 
         assertEquals(String.format("User id %s not found.", itemRequestRequestDtoToSave.getRequesterId()), e.getMessage());
-        verify(requestRepository, never()).save(any(Request.class));
+        verify(requestRepository, never()).saveAndFlush(any(Request.class));
     }
 
     @Test
     public void findRequest_Normal() {
         when(userRepository.findById(requester.getId())).thenReturn(Optional.of(requester));
-        when(requestRepository.findById(savedRequest.getId())).thenReturn(Optional.of(savedRequest));
+        when(requestRepository.findWithItemsById(savedRequest.getId())).thenReturn(Optional.of(savedRequest));
 
         ItemRequestResponseDto actualRequest = requestService.findRequest(savedRequest.getId(), requester.getId());
 
@@ -111,7 +119,7 @@ public class RequestServiceTest {
     @Test
     public void findRequest_NoSuchRequest() {
         when(userRepository.findById(requester.getId())).thenReturn(Optional.of(requester));
-        when(requestRepository.findById(savedRequest.getId())).thenReturn(Optional.empty());
+        when(requestRepository.findWithItemsById(savedRequest.getId())).thenReturn(Optional.empty());
 
         Throwable e = assertThrows(RequestNotFoundException.class, ()
                 -> requestService.findRequest(savedRequest.getId(), requester.getId()));
@@ -123,6 +131,7 @@ public class RequestServiceTest {
     public void findUserRequest_Normal() {
         when(userRepository.findById(requester.getId())).thenReturn(Optional.of(requester));
         when(requestRepository.findAllByRequesterId(any(), any())).thenReturn(new PageImpl<>(requests));
+        when(itemRepository.findAllByRequestIdIn(List.of(savedRequest.getId()))).thenReturn(new ArrayList<>());
         int from = 0;
         int size = 10;
 
@@ -161,6 +170,7 @@ public class RequestServiceTest {
     @Test
     public void findAllRequests_Normal() {
         when(requestRepository.findAllOrderByCreated(any(), any())).thenReturn(new PageImpl<>(requests));
+        when(itemRepository.findAllByRequestIdIn(List.of(savedRequest.getId()))).thenReturn(new ArrayList<>());
         int from = 0;
         int size = 10;
 
@@ -170,6 +180,36 @@ public class RequestServiceTest {
         assertEquals(savedItemRequestRequestDto, result.get(0));
     }
 
+    @Test
+    public void findAllRequests_ItemsLoadedForWholePage() {
+        Request otherRequest = Request.builder()
+                .id(2L)
+                .description("other description")
+                .created(Timestamp.valueOf(LocalDateTime.now()))
+                .requester(requester)
+                .build();
+        Item item = Item.builder()
+                .id(1L)
+                .name("name")
+                .description("description")
+                .ownerId(2L)
+                .isAvailable(true)
+                .request(otherRequest)
+                .build();
+        requests.add(otherRequest);
+        when(requestRepository.findAllOrderByCreated(any(), any())).thenReturn(new PageImpl<>(requests));
+        when(itemRepository.findAllByRequestIdIn(List.of(savedRequest.getId(), otherRequest.getId())))
+                .thenReturn(List.of(item));
+
+        List<ItemRequestResponseDto> result = requestService.findAllRequests(requester.getId(), 0, 10);
+
+        assertEquals(2, result.size());
+        assertTrue(result.get(0).getItems().isEmpty());
+        assertEquals(1, result.get(1).getItems().size());
+        assertEquals(item.getId(), result.get(1).getItems().get(0).getId());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(anyCollection());
+    }
+
     @Test
     public void findAllRequests_Empty() {
         when(requestRepository.findAllOrderByCreated(any(), any())).thenReturn(new PageImpl<>(new ArrayList<>()));
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserLookupCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private UserLookupCache cache;
+    private User user;
+
+    @BeforeEach
+    public void beforeEach() {
+        cache = new UserLookupCache(userRepository, mock(PlatformTransactionManager.class), Duration.ofMinutes(5), 100);
+        user = User.builder().id(1L).name("name").email("email@email.ru").build();
+    }
+
+    @Test
+    public void findById_LoadsOnce() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertEquals(user, cache.findById(1L).orElseThrow());
+        assertTrue(cache.exists(1L));
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void referencing_DeletedElsewhereIsMissingAndDropped() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of());
+        assertTrue(cache.exists(1L));
+
+        Throwable e = assertThrows(UserNotFoundException.class, () -> cache.referencing(1L, () -> {
+            throw new DataIntegrityViolationException("fk_booker");
+        }));
+
+        assertEquals("User id 1 not found", e.getMessage());
+        assertTrue(cache.exists(1L));
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void referencing_OtherViolationIsRethrown() {
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user));
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("fk_request_item");
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> cache.referencing(1L, () -> {
+                    throw violation;
+                })));
+    }
+
+    @Test
+    public void findById_ReturnsCopy() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        cache.findById(1L).orElseThrow().setName("changed");
+
+        assertEquals("name", cache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    public void findById_AbsentUserNotCached() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty(), Optional.of(user));
+
+        assertFalse(cache.exists(1L));
+        assertTrue(cache.exists(1L));
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void findById_MissInReadOnlyTransactionNotCached() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertTrue(cache.exists(1L));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+        assertTrue(cache.exists(1L));
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void invalidate_ReloadsUser() {
+        User updated = User.builder().id(1L).name("updated").email("email@email.ru").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user), Optional.of(updated));
+
+        cache.findById(1L);
+        cache.invalidate(1L);
+
+        assertEquals("updated", cache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    public void bindTo_PublishesHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        cache.findById(1L);
+        cache.findById(1L);
+        cache.findById(1L);
+
+        assertEquals(2, registry.get("cache.gets").tags("cache", "users", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "users", "result", "miss")
+                .functionCounter().count());
+    }
+}
@@ -5,12 +5,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.ItemBookingStatsRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.exceptions.EmailRegisteredException;
 import ru.practicum.shareit.user.exceptions.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserLookupCache;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +37,22 @@ public class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserLookupCache userLookupCache;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private ItemBookingStatsRepository statsRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private RequestRepository requestRepository;
     @InjectMocks
     private UserService userService;
 
@@ -72,9 +100,28 @@ public class UserServiceTest {
         User result = userService.update(updatedUser);
         verify(userRepository, times(1)).findById(updatedUser.getId());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userLookupCache, times(2)).invalidate(updatedUser.getId());
         assertEquals(expectedUser, result);
     }
 
+    @Test
+    public void update_InvalidatesCacheAgainAfterCommit() {
+        User savedUser = User.builder().id(1L).name("name").email("email@email.ru").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(savedUser));
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.update(User.builder().id(1L).name("updated name").build());
+            verify(userLookupCache, times(1)).invalidate(1L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(userLookupCache, times(2)).invalidate(1L);
+    }
+
     @Test
     public void userUpdate_wrongId() {
         User user = User.builder().id(9999L).build();
@@ -313,7 +360,21 @@ public class UserServiceTest {
 
     @Test
     public void delete_Normal() {
-        userService.delete(anyLong());
-        verify(userRepository, times(1)).deleteById(anyLong());
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(bookingRepository.findBookedItemIdsByBookerId(1L)).thenReturn(List.of(5L));
+        when(itemRepository.findIdsByOwnerIdOrRequesterId(1L)).thenReturn(List.of(2L, 3L));
+        when(requestRepository.findIdsByRequesterId(1L)).thenReturn(List.of(4L));
+
+        userService.delete(1L);
+        verify(availabilityIndex, times(1)).evictAfterCommit(List.of(5L));
+        verify(statsRepository, times(1)).subtractBookingsOf(1L);
+        verify(statsRepository, times(1)).subtractArchivedBookingsOf(1L);
+        verify(userRepository, times(1)).deleteById(1L);
+        verify(userLookupCache, times(2)).invalidate(1L);
+        verify(cache, times(1)).evict(Item.class, 2L);
+        verify(cache, times(1)).evict(Item.class, 3L);
+        verify(cache, times(1)).evict(Request.class, 4L);
+        verify(cache, never()).evict(Item.class);
+        verify(cache, never()).evict(Request.class);
     }
 }